@@ -1,38 +1,22 @@
 package main.java.com.dlohaiti.dlokiosk;
 
-import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import com.google.inject.Inject;
+import android.util.Log;
 import com.google.inject.Singleton;
 import org.springframework.util.support.Base64;
 
-import java.io.ByteArrayOutputStream;
-import com.dlohaiti.dlokiosk.R;
-
 @Singleton
 public class Base64ImageConverter {
-    private final Context context;
-
-    @Inject
-    public Base64ImageConverter(Context context) {
-        this.context = context;
-    }
+    private static final String TAG = Base64ImageConverter.class.getSimpleName();
 
-    public Bitmap fromBase64EncodedString(String encodedImage) {
-        Bitmap resource;
+    public byte[] fromBase64EncodedString(String encodedImage) {
+        if (encodedImage == null) {
+            return null;
+        }
         try {
-            byte[] imageData = Base64.decode(encodedImage);
-            resource = BitmapFactory.decodeByteArray(imageData, 0, imageData.length);
+            return Base64.decode(encodedImage);
         } catch (Exception e) {
-            resource = BitmapFactory.decodeResource(context.getResources(), R.drawable.unknown);
+            Log.w(TAG, "Could not decode image.", e);
+            return null;
         }
-        return resource;
-    }
-
-    public String toBase64EncodedString(Bitmap imageResource) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        imageResource.compress(Bitmap.CompressFormat.PNG, 100, baos);
-        return android.util.Base64.encodeToString(baos.toByteArray(), android.util.Base64.DEFAULT);
     }
 }
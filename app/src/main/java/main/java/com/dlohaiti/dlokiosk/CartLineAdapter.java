@@ -0,0 +1,53 @@
+package main.java.com.dlohaiti.dlokiosk;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.GridView;
+import android.widget.ImageView;
+import android.widget.TextView;
+import main.java.com.dlohaiti.dlokiosk.domain.Product;
+
+import java.util.List;
+
+/**
+ * Shows each shopping cart line as its product icon with the line's quantity in the corner, since
+ * repeated products share one line.
+ */
+public class CartLineAdapter extends ImageAdapter<Product> {
+    private static final int BADGE_PADDING = 6;
+
+    public CartLineAdapter(Context c, List<Product> lines, IconLoader iconLoader) {
+        super(c, lines, iconLoader);
+    }
+
+    @Override public View getView(int position, View convertView, ViewGroup parent) {
+        FrameLayout cell;
+        if (convertView == null) {
+            cell = new FrameLayout(getContext());
+            cell.setLayoutParams(new GridView.LayoutParams(CELL_SIZE, CELL_SIZE));
+            cell.addView(newIconView(), new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            cell.addView(newQuantityView(), new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.BOTTOM | Gravity.RIGHT));
+        } else {
+            cell = (FrameLayout) convertView;
+        }
+
+        Product line = (Product) getItem(position);
+        loadIcon((ImageView) cell.getChildAt(0), line);
+        ((TextView) cell.getChildAt(1)).setText(String.valueOf(line.getQuantity()));
+        return cell;
+    }
+
+    private TextView newQuantityView() {
+        TextView quantity = new TextView(getContext());
+        quantity.setTextColor(Color.WHITE);
+        quantity.setBackgroundColor(Color.argb(160, 0, 0, 0));
+        quantity.setTypeface(Typeface.DEFAULT_BOLD);
+        quantity.setPadding(BADGE_PADDING, 0, BADGE_PADDING, 0);
+        return quantity;
+    }
+}
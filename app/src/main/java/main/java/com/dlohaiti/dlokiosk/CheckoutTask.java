@@ -0,0 +1,40 @@
+package main.java.com.dlohaiti.dlokiosk;
+
+import android.util.Log;
+import android.widget.Toast;
+import main.java.com.dlohaiti.dlokiosk.domain.Pricing;
+import main.java.com.dlohaiti.dlokiosk.domain.Receipt;
+import main.java.com.dlohaiti.dlokiosk.domain.Register;
+import com.google.inject.Inject;
+import roboguice.inject.InjectResource;
+import roboguice.util.RoboAsyncTask;
+
+import com.dlohaiti.dlokiosk.R;
+
+public class CheckoutTask extends RoboAsyncTask<Receipt> {
+    private static final String TAG = CheckoutTask.class.getSimpleName();
+    @Inject private Register register;
+    @InjectResource(R.string.checkout_failed) private String checkoutFailedMessage;
+    private final EnterPromotionActivity activity;
+    private final Pricing pricing;
+
+    public CheckoutTask(EnterPromotionActivity activity, Pricing pricing) {
+        super(activity);
+        this.activity = activity;
+        this.pricing = pricing;
+    }
+
+    @Override public Receipt call() throws Exception {
+        return register.checkout(pricing);
+    }
+
+    @Override protected void onSuccess(Receipt receipt) throws Exception {
+        activity.checkoutSucceeded();
+    }
+
+    @Override protected void onException(Exception e) throws RuntimeException {
+        Log.e(TAG, "Failed to record the sale", e);
+        Toast.makeText(activity, checkoutFailedMessage, Toast.LENGTH_LONG).show();
+        activity.checkoutFailed();
+    }
+}
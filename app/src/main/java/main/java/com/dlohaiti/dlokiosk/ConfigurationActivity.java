@@ -5,6 +5,7 @@ import android.view.View;
 import android.widget.EditText;
 import android.widget.TextView;
 import main.java.com.dlohaiti.dlokiosk.client.ConfigurationClient;
+import main.java.com.dlohaiti.dlokiosk.client.RestClient;
 import main.java.com.dlohaiti.dlokiosk.db.ConfigurationKey;
 import main.java.com.dlohaiti.dlokiosk.db.ConfigurationRepository;
 import com.google.inject.Inject;
@@ -21,6 +22,7 @@ public class ConfigurationActivity extends RoboActivity {
     @InjectView(R.id.last_updated) private TextView lastUpdated;
     @Inject private ConfigurationRepository config;
     @Inject private ConfigurationClient client;
+    @Inject private RestClient restClient;
 
     @Override protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -38,6 +40,8 @@ public class ConfigurationActivity extends RoboActivity {
         config.save(ConfigurationKey.KIOSK_ID, kioskId);
         config.save(ConfigurationKey.KIOSK_PASSWORD, kioskPassword);
         config.save(ConfigurationKey.SERVER_URL, serverHome);
+        config.save(ConfigurationKey.CONFIGURATION_ETAG, "");
+        restClient.invalidate();
         finish();
     }
 
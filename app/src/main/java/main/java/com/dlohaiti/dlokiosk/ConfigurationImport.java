@@ -0,0 +1,233 @@
+package main.java.com.dlohaiti.dlokiosk;
+
+import android.util.Log;
+import main.java.com.dlohaiti.dlokiosk.client.*;
+import main.java.com.dlohaiti.dlokiosk.db.*;
+import main.java.com.dlohaiti.dlokiosk.domain.*;
+import com.google.inject.Inject;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the whole /configuration payload before touching the database. Icons are written to the
+ * {@link IconStore} as they arrive and every other item is staged as a {@link UnitOfWork}; the staged
+ * writes are then committed in one short unit of work, so the download never holds the write lock and a
+ * failed download or insert leaves the previous catalogue in place. A full payload replaces the
+ * catalogue; a delta only touches the items it mentions. Icon files no longer referenced by the
+ * catalogue are swept only once the import commits, and the sweep is skipped when the referenced keys
+ * cannot be read. An import that fails only deletes the icon files it created itself.
+ */
+public class ConfigurationImport implements ConfigurationHandler {
+    private static final String TAG = ConfigurationImport.class.getSimpleName();
+    private final KioskDatabase db;
+    private final ConfigurationClient client;
+    private final ProductRepository productRepository;
+    private final PromotionRepository promotionRepository;
+    private final SamplingSiteParametersRepository samplingSiteParametersRepository;
+    private final DeliveryAgentRepository deliveryAgentRepository;
+    private final ConfigurationRepository configurationRepository;
+    private final KioskDate kioskDate;
+    private final Base64ImageConverter imageConverter;
+    private final IconStore iconStore;
+    private final IconCache iconCache;
+    private final List<UnitOfWork> staged = new ArrayList<UnitOfWork>();
+    private final Set<String> createdIconKeys = new HashSet<String>();
+    private String etag;
+    private boolean delta;
+    private boolean iconsChanged;
+
+    @Inject
+    public ConfigurationImport(KioskDatabase db, ConfigurationClient client, ProductRepository productRepository,
+                               PromotionRepository promotionRepository, SamplingSiteParametersRepository samplingSiteParametersRepository,
+                               DeliveryAgentRepository deliveryAgentRepository, ConfigurationRepository configurationRepository,
+                               KioskDate kioskDate, Base64ImageConverter imageConverter, IconStore iconStore, IconCache iconCache) {
+        this.db = db;
+        this.client = client;
+        this.productRepository = productRepository;
+        this.promotionRepository = promotionRepository;
+        this.samplingSiteParametersRepository = samplingSiteParametersRepository;
+        this.deliveryAgentRepository = deliveryAgentRepository;
+        this.configurationRepository = configurationRepository;
+        this.kioskDate = kioskDate;
+        this.imageConverter = imageConverter;
+        this.iconStore = iconStore;
+        this.iconCache = iconCache;
+    }
+
+    public boolean run() {
+        staged.clear();
+        createdIconKeys.clear();
+        iconsChanged = false;
+        boolean saved = false;
+        try {
+            if (!client.fetch(configurationRepository.get(ConfigurationKey.CONFIGURATION_ETAG), this)) {
+                Log.i(TAG, "Configuration has not changed since the last pull");
+                return true;
+            }
+            saved = db.inTransaction(new UnitOfWork() {
+                @Override public boolean perform(Transaction transaction) {
+                    for (UnitOfWork write : staged) {
+                        if (!write.perform(transaction)) {
+                            return false;
+                        }
+                    }
+                    return configurationRepository.save(ConfigurationKey.CONFIGURATION_ETAG, etag);
+                }
+            });
+            samplingSiteParametersRepository.invalidate();
+            return saved;
+        } finally {
+            staged.clear();
+            if (!saved) {
+                iconStore.removeAll(createdIconKeys);
+            } else if (iconsChanged) {
+                sweepIcons();
+                iconCache.evictAll();
+            }
+            createdIconKeys.clear();
+        }
+    }
+
+    @Override public void onStart(boolean delta, String etag) {
+        this.etag = etag == null ? "" : etag;
+        this.delta = delta;
+        if (!delta) {
+            iconsChanged = true;
+            staged.add(new UnitOfWork() {
+                @Override public boolean perform(Transaction transaction) {
+                    return productRepository.deleteAll() &&
+                            promotionRepository.deleteAll() &&
+                            samplingSiteParametersRepository.deleteAll() &&
+                            deliveryAgentRepository.deleteAll();
+                }
+            });
+        }
+    }
+
+    @Override public void onProduct(ProductJson p) {
+        Money price = new Money(p.getPrice().getAmount());
+        String iconKey = saveIcon(p.getBase64EncodedImage());
+        final Product product = new Product(null, p.getSku(), iconKey, p.isRequiresQuantity(), 1, p.getMinimumQuantity(), p.getMaximumQuantity(), price, p.getDescription(), p.getGallons());
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return delta ? productRepository.save(product) : productRepository.add(transaction, product);
+            }
+        });
+    }
+
+    @Override public void onPromotion(PromotionJson p) {
+        PromotionApplicationType appliesTo = PromotionApplicationType.valueOf(p.getAppliesTo());
+        Date start = parseDate(p.getStartDate());
+        Date end = parseDate(p.getEndDate());
+        String iconKey = saveIcon(p.getBase64EncodedImage());
+        final Promotion promotion = new Promotion(null, p.getSku(), appliesTo, p.getProductSku(), start, end, p.getAmount().toString(), PromotionType.valueOf(p.getType()), iconKey);
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return delta ? promotionRepository.save(promotion) : promotionRepository.add(transaction, promotion);
+            }
+        });
+    }
+
+    @Override public void onParameter(ParameterJson p) {
+        Parameter parameter = new Parameter(p.getName(), p.getUnit(), p.getMinimum(), p.getMaximum(), p.isOkNotOk(), p.getPriority());
+        List<SamplingSite> samplingSites = new ArrayList<SamplingSite>();
+        for (SamplingSiteJson site : p.getSamplingSites()) {
+            samplingSites.add(new SamplingSite(site.getName()));
+        }
+        final ParameterSamplingSites parameterSamplingSites = new ParameterSamplingSites(parameter, samplingSites);
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return delta ? samplingSiteParametersRepository.save(parameterSamplingSites) : samplingSiteParametersRepository.add(transaction, parameterSamplingSites);
+            }
+        });
+    }
+
+    @Override public void onDeliveryAgent(DeliveryAgentJson a) {
+        final DeliveryAgent agent = new DeliveryAgent(a.getName());
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return delta ? deliveryAgentRepository.save(agent) : deliveryAgentRepository.add(transaction, agent);
+            }
+        });
+    }
+
+    @Override public void onDeliveryConfiguration(final DeliveryConfigurationJson configuration) {
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return configurationRepository.save(ConfigurationKey.DELIVERY_TRACKING_MIN, configuration.getMinimum()) &&
+                        configurationRepository.save(ConfigurationKey.DELIVERY_TRACKING_MAX, configuration.getMaximum()) &&
+                        configurationRepository.save(ConfigurationKey.DELIVERY_TRACKING_DEFAULT, configuration.getDefault());
+            }
+        });
+    }
+
+    @Override public void onProductRemoved(final String sku) {
+        iconsChanged = true;
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return productRepository.remove(sku);
+            }
+        });
+    }
+
+    @Override public void onPromotionRemoved(final String sku) {
+        iconsChanged = true;
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return promotionRepository.remove(sku);
+            }
+        });
+    }
+
+    @Override public void onParameterRemoved(final String name) {
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return samplingSiteParametersRepository.remove(name);
+            }
+        });
+    }
+
+    @Override public void onDeliveryAgentRemoved(final String name) {
+        staged.add(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return deliveryAgentRepository.remove(name);
+            }
+        });
+    }
+
+    private String saveIcon(String base64EncodedImage) {
+        iconsChanged = true;
+        byte[] image = imageConverter.fromBase64EncodedString(base64EncodedImage);
+        boolean stored = image != null && iconStore.contains(iconStore.keyFor(image));
+        String iconKey = iconStore.save(image);
+        if (iconKey != null && !stored) {
+            createdIconKeys.add(iconKey);
+        }
+        return iconKey;
+    }
+
+    private void sweepIcons() {
+        Set<String> iconKeys = new HashSet<String>();
+        try {
+            iconKeys.addAll(productRepository.findIconKeys());
+            iconKeys.addAll(promotionRepository.findIconKeys());
+        } catch (DatabaseException e) {
+            Log.w(TAG, "Skipping the icon sweep, the referenced icons could not be read", e);
+            return;
+        }
+        iconStore.retainOnly(iconKeys);
+    }
+
+    private Date parseDate(String date) {
+        try {
+            return kioskDate.parse(date);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Unparseable promotion date " + date, e);
+        }
+    }
+}
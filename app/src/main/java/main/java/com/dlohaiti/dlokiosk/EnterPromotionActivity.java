@@ -7,6 +7,8 @@ import android.widget.AdapterView;
 import android.widget.GridView;
 import android.widget.TextView;
 import main.java.com.dlohaiti.dlokiosk.db.PromotionRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.CartSessions;
+import main.java.com.dlohaiti.dlokiosk.domain.Clock;
 import main.java.com.dlohaiti.dlokiosk.domain.Promotion;
 import main.java.com.dlohaiti.dlokiosk.domain.ShoppingCart;
 
@@ -15,7 +17,6 @@ import com.google.inject.Inject;
 import roboguice.activity.RoboActivity;
 import roboguice.inject.InjectView;
 
-import java.util.ArrayList;
 import java.util.List;
 import com.dlohaiti.dlokiosk.R;
 
@@ -28,24 +29,27 @@ public class EnterPromotionActivity extends RoboActivity {
     @InjectView(R.id.total) private TextView totalTextBox;
     @InjectView(R.id.total_currency) private TextView totalCurrencyTextBox;
     @Inject private PromotionRepository promotionRepository;
-    @Inject public ShoppingCart shoppingCart;
+    @Inject private CartSessions cartSessions;
+    @Inject private IconLoader iconLoader;
+    @Inject private Clock clock;
+    public ShoppingCart shoppingCart;
     private ImageAdapter adapter;
+    private boolean checkingOut = false;
 
     @Override protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_enter_promotions);
+        shoppingCart = cartSessions.open(CartSessions.COUNTER_SALE);
 
-        List<Promotion> promotions = new ArrayList<Promotion>();
-        for (Promotion p : promotionRepository.list()) {
-            if (p.appliesTo(shoppingCart.getProducts())) {
-                promotions.add(p);
-            }
-        }
-        inventoryGrid.setAdapter(new ImageAdapter<Promotion>(this, promotions));
-        adapter = new ImageAdapter<Promotion>(this, shoppingCart.getPromotions());
+        List<Promotion> promotions = promotionRepository.findEligible(clock.now(), shoppingCart.getSkus());
+        inventoryGrid.setAdapter(new ImageAdapter<Promotion>(this, promotions, iconLoader));
+        adapter = new ImageAdapter<Promotion>(this, shoppingCart.getPromotions(), iconLoader);
         shoppingCartGrid.setAdapter(adapter);
         inventoryGrid.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                if (checkingOut) {
+                    return;
+                }
                 shoppingCart.addPromotion(promotionRepository.findById(id));
                 adapter.notifyDataSetChanged();
                 updateNewTotal();
@@ -53,6 +57,9 @@ public class EnterPromotionActivity extends RoboActivity {
         });
         shoppingCartGrid.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                if (checkingOut) {
+                    return;
+                }
                 shoppingCart.removePromotion(position);
                 adapter.notifyDataSetChanged();
                 updateNewTotal();
@@ -66,16 +73,32 @@ public class EnterPromotionActivity extends RoboActivity {
     }
 
     @Override public void onBackPressed() {
+        if (checkingOut) {
+            return;
+        }
         startActivity(new Intent(this, EnterSaleActivity.class));
         shoppingCart.clearPromotions();
         finish();
     }
 
     public void checkout(View v) {
-        shoppingCart.checkout();
+        if (checkingOut) {
+            return;
+        }
+        checkingOut = true;
+        new CheckoutTask(this, shoppingCart.getPricing()).execute();
+    }
+
+    void checkoutSucceeded() {
+        shoppingCart.clear();
+        cartSessions.close(CartSessions.COUNTER_SALE);
         finish();
     }
 
+    void checkoutFailed() {
+        checkingOut = false;
+    }
+
     private void updateNewTotal() {
         totalTextBox.setText(String.valueOf(shoppingCart.getTotal()));
     }
@@ -5,11 +5,14 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.GridView;
+import android.widget.Toast;
 import main.java.com.dlohaiti.dlokiosk.db.ProductRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.CartSessions;
 import main.java.com.dlohaiti.dlokiosk.domain.Product;
 import main.java.com.dlohaiti.dlokiosk.domain.ShoppingCart;
 import com.google.inject.Inject;
 import roboguice.activity.RoboActivity;
+import roboguice.inject.InjectResource;
 import roboguice.inject.InjectView;
 import com.dlohaiti.dlokiosk.R;
 
@@ -17,14 +20,18 @@ public class EnterSaleActivity extends RoboActivity {
     @InjectView(R.id.left_grid) private GridView inventoryGrid;
     @InjectView(R.id.right_grid) private GridView shoppingCartGrid;
     @Inject private ProductRepository repository;
-    @Inject private ShoppingCart sc;
-    private ImageAdapter adapter;
+    @Inject private CartSessions cartSessions;
+    @Inject private IconLoader iconLoader;
+    @InjectResource(R.string.maximum_quantity_reached) private String maximumQuantityReachedMessage;
+    private CartLineAdapter adapter;
+    private ShoppingCart sc;
 
     @Override protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_enter_sale);
-        inventoryGrid.setAdapter(new ImageAdapter<Product>(this, repository.list()));
-        adapter = new ImageAdapter<Product>(this, sc.getProducts());
+        sc = cartSessions.open(CartSessions.COUNTER_SALE);
+        inventoryGrid.setAdapter(new ImageAdapter<Product>(this, repository.list(), iconLoader));
+        adapter = new CartLineAdapter(this, sc.getProducts(), iconLoader);
         shoppingCartGrid.setAdapter(adapter);
 
         inventoryGrid.setOnItemClickListener(new AdapterView.OnItemClickListener() {
@@ -48,7 +55,9 @@ public class EnterSaleActivity extends RoboActivity {
     }
 
     public void addToShoppingCart(Product product) {
-        sc.addProduct(product);
+        if (!sc.addProduct(product)) {
+            Toast.makeText(this, maximumQuantityReachedMessage, Toast.LENGTH_LONG).show();
+        }
         adapter.notifyDataSetChanged();
     }
 
@@ -58,7 +67,7 @@ public class EnterSaleActivity extends RoboActivity {
     }
 
     @Override public void onBackPressed() {
-        sc.clear();
+        cartSessions.close(CartSessions.COUNTER_SALE);
         finish();
     }
 }
@@ -0,0 +1,70 @@
+package main.java.com.dlohaiti.dlokiosk;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+import android.util.LruCache;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+@Singleton
+public class IconCache {
+    private static final String TAG = IconCache.class.getSimpleName();
+    private static final String UNKNOWN_ICON = "unknown";
+    private final IconStore iconStore;
+    private final LruCache<String, Bitmap> bitmaps;
+
+    @Inject
+    public IconCache(IconStore iconStore) {
+        this(iconStore, (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE));
+    }
+
+    public IconCache(IconStore iconStore, int maxBytes) {
+        this.iconStore = iconStore;
+        this.bitmaps = new LruCache<String, Bitmap>(maxBytes) {
+            @Override protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    public Bitmap load(String iconKey) {
+        Bitmap bitmap = get(iconKey);
+        return bitmap != null ? bitmap : decode(iconKey);
+    }
+
+    public Bitmap get(String iconKey) {
+        return bitmaps.get(cacheKey(iconKey));
+    }
+
+    public Bitmap decode(String iconKey) {
+        Bitmap bitmap = iconStore.load(iconKey);
+        bitmaps.put(cacheKey(iconKey), bitmap);
+        return bitmap;
+    }
+
+    public void evictAll() {
+        Log.i(TAG, getStats());
+        bitmaps.evictAll();
+    }
+
+    public int hitCount() {
+        return bitmaps.hitCount();
+    }
+
+    public int missCount() {
+        return bitmaps.missCount();
+    }
+
+    public int evictionCount() {
+        return bitmaps.evictionCount();
+    }
+
+    private String cacheKey(String iconKey) {
+        return iconKey == null ? UNKNOWN_ICON : iconKey;
+    }
+
+    public String getStats() {
+        return String.format("Icon cache: %d of %d bytes used, %d hits, %d misses, %d evictions",
+                bitmaps.size(), bitmaps.maxSize(), hitCount(), missCount(), evictionCount());
+    }
+}
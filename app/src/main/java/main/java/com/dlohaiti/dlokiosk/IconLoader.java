@@ -0,0 +1,96 @@
+package main.java.com.dlohaiti.dlokiosk;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.widget.ImageView;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+@Singleton
+public class IconLoader {
+    private static final int THREADS = 2;
+    private final IconCache iconCache;
+    private final Executor executor;
+    private final Handler mainThread;
+    private final Drawable placeholder = new ColorDrawable(Color.TRANSPARENT);
+
+    @Inject
+    public IconLoader(IconCache iconCache) {
+        this(iconCache, Executors.newFixedThreadPool(THREADS, new BackgroundThreadFactory()), new Handler(Looper.getMainLooper()));
+    }
+
+    public IconLoader(IconCache iconCache, Executor executor, Handler mainThread) {
+        this.iconCache = iconCache;
+        this.executor = executor;
+        this.mainThread = mainThread;
+    }
+
+    public void loadInto(ImageView imageView, String iconKey) {
+        cancel(imageView);
+        Bitmap cached = iconCache.get(iconKey);
+        if (cached != null) {
+            imageView.setImageBitmap(cached);
+            return;
+        }
+        imageView.setImageDrawable(placeholder);
+        IconRequest request = new IconRequest(imageView, iconKey);
+        imageView.setTag(request);
+        executor.execute(request);
+    }
+
+    private void cancel(ImageView imageView) {
+        Object tag = imageView.getTag();
+        if (tag instanceof IconRequest) {
+            ((IconRequest) tag).cancelled = true;
+        }
+        imageView.setTag(null);
+    }
+
+    private class IconRequest implements Runnable {
+        private final ImageView imageView;
+        private final String iconKey;
+        private volatile boolean cancelled;
+
+        IconRequest(ImageView imageView, String iconKey) {
+            this.imageView = imageView;
+            this.iconKey = iconKey;
+        }
+
+        @Override public void run() {
+            if (cancelled) {
+                return;
+            }
+            final Bitmap bitmap = iconCache.decode(iconKey);
+            mainThread.post(new Runnable() {
+                @Override public void run() {
+                    if (!cancelled && imageView.getTag() == IconRequest.this) {
+                        imageView.setImageBitmap(bitmap);
+                        imageView.setTag(null);
+                    }
+                }
+            });
+        }
+    }
+
+    private static class BackgroundThreadFactory implements ThreadFactory {
+        @Override public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "IconLoader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
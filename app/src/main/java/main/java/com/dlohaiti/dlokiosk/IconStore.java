@@ -0,0 +1,175 @@
+package main.java.com.dlohaiti.dlokiosk;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Set;
+import com.dlohaiti.dlokiosk.R;
+
+@Singleton
+public class IconStore {
+    private static final String TAG = IconStore.class.getSimpleName();
+    private static final String ICONS_DIRECTORY = "icons";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private final Context context;
+
+    @Inject
+    public IconStore(Context context) {
+        this.context = context;
+    }
+
+    public String save(byte[] image) {
+        if (image == null || image.length == 0) {
+            return null;
+        }
+        String key = keyFor(image);
+        File file = fileFor(key);
+        if (file.exists()) {
+            return key;
+        }
+        File temp = new File(directory(), key + TEMP_SUFFIX);
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(scaledToCell(image));
+            out.close();
+            out = null;
+            if (!temp.renameTo(file)) {
+                throw new IOException(String.format("Could not move %s into place", temp.getName()));
+            }
+            return key;
+        } catch (IOException e) {
+            Log.e(TAG, String.format("Failed to save icon %s", key), e);
+            temp.delete();
+            return null;
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    public Bitmap load(String key) {
+        Bitmap bitmap = null;
+        if (key != null) {
+            String path = fileFor(key).getPath();
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(path, bounds);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sampleSizeFor(bounds.outWidth, bounds.outHeight, ImageAdapter.CELL_SIZE);
+            bitmap = BitmapFactory.decodeFile(path, options);
+        }
+        if (bitmap == null) {
+            bitmap = BitmapFactory.decodeResource(context.getResources(), R.drawable.unknown);
+        }
+        return bitmap;
+    }
+
+    public boolean contains(String key) {
+        return key != null && fileFor(key).exists();
+    }
+
+    public void retainOnly(Set<String> keys) {
+        File[] files = directory().listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!keys.contains(file.getName()) && !file.getName().endsWith(TEMP_SUFFIX)) {
+                delete(file);
+            }
+        }
+    }
+
+    public void removeAll(Collection<String> keys) {
+        for (String key : keys) {
+            File file = fileFor(key);
+            if (file.exists()) {
+                delete(file);
+            }
+        }
+    }
+
+    public static int sampleSizeFor(int width, int height, int targetSize) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= targetSize && height / (sampleSize * 2) >= targetSize) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private byte[] scaledToCell(byte[] image) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(image, 0, image.length, bounds);
+        int shortestSide = Math.min(bounds.outWidth, bounds.outHeight);
+        if (shortestSide <= ImageAdapter.CELL_SIZE) {
+            return image;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSizeFor(bounds.outWidth, bounds.outHeight, ImageAdapter.CELL_SIZE);
+        Bitmap sampled = BitmapFactory.decodeByteArray(image, 0, image.length, options);
+        if (sampled == null) {
+            return image;
+        }
+        float scale = (float) ImageAdapter.CELL_SIZE / Math.min(sampled.getWidth(), sampled.getHeight());
+        Bitmap scaled = Bitmap.createScaledBitmap(sampled, Math.round(sampled.getWidth() * scale), Math.round(sampled.getHeight() * scale), true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        scaled.compress(Bitmap.CompressFormat.PNG, 100, out);
+        if (scaled != sampled) {
+            sampled.recycle();
+        }
+        scaled.recycle();
+        return out.toByteArray();
+    }
+
+    private void delete(File file) {
+        if (!file.delete()) {
+            Log.w(TAG, String.format("Could not delete unused icon %s", file.getName()));
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(directory(), key);
+    }
+
+    private File directory() {
+        File directory = new File(context.getFilesDir(), ICONS_DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Could not create icon directory " + directory.getPath());
+        }
+        return directory;
+    }
+
+    public String keyFor(byte[] image) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(image);
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private void closeQuietly(FileOutputStream out) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
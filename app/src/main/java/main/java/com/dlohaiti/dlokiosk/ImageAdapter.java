@@ -10,12 +10,15 @@ import android.widget.ImageView;
 import java.util.List;
 
 public class ImageAdapter<T extends VisibleGridItem> extends BaseAdapter {
+    public static final int CELL_SIZE = 144;
     private final Context mContext;
     private final List<T> items;
+    private final IconLoader iconLoader;
 
-    public ImageAdapter(Context c, List<T> items) {
+    public ImageAdapter(Context c, List<T> items, IconLoader iconLoader) {
         this.mContext = c;
         this.items = items;
+        this.iconLoader = iconLoader;
     }
 
     public int getCount() {
@@ -33,14 +36,27 @@ public class ImageAdapter<T extends VisibleGridItem> extends BaseAdapter {
     public View getView(int position, View convertView, ViewGroup parent) {
         ImageView imageView;
         if (convertView == null) {
-            imageView = new ImageView(mContext);
-            imageView.setLayoutParams(new GridView.LayoutParams(144, 144));
-            imageView.setScaleType(ImageView.ScaleType.CENTER_CROP);
+            imageView = newIconView();
+            imageView.setLayoutParams(new GridView.LayoutParams(CELL_SIZE, CELL_SIZE));
         } else {
             imageView = (ImageView) convertView;
         }
 
-        imageView.setImageBitmap(items.get(position).getImageResource());
+        loadIcon(imageView, items.get(position));
         return imageView;
     }
+
+    protected Context getContext() {
+        return mContext;
+    }
+
+    protected ImageView newIconView() {
+        ImageView imageView = new ImageView(mContext);
+        imageView.setScaleType(ImageView.ScaleType.CENTER_CROP);
+        return imageView;
+    }
+
+    protected void loadIcon(ImageView imageView, T item) {
+        iconLoader.loadInto(imageView, item.getIconKey());
+    }
 }
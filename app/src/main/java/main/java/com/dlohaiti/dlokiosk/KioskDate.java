@@ -3,11 +3,32 @@ package main.java.com.dlohaiti.dlokiosk;
 import com.google.inject.Singleton;
 
 import java.text.DateFormat;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Date;
 
 @Singleton
 public class KioskDate {
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss z";
+    private static final ThreadLocal<DateFormat> FORMAT = new ThreadLocal<DateFormat>() {
+        @Override protected DateFormat initialValue() {
+            return new SimpleDateFormat(PATTERN);
+        }
+    };
+
+    /**
+     * A new format for callers that keep it, such as the JSON mapper. Use {@link #format} and
+     * {@link #parse} for one-off conversions; they reuse one format per thread.
+     */
     public DateFormat getFormat() {
-        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z");
+        return new SimpleDateFormat(PATTERN);
+    }
+
+    public String format(Date date) {
+        return FORMAT.get().format(date);
+    }
+
+    public Date parse(String text) throws ParseException {
+        return FORMAT.get().parse(text);
     }
 }
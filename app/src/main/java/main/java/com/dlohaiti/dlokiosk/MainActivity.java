@@ -23,9 +23,7 @@ public class MainActivity extends RoboActivity implements StatusView {
     @InjectView(R.id.serverStatusProgressBar) ProgressBar serverStatusProgressBar;
     @InjectView(R.id.statusImage) ImageView statusImage;
     @Inject private ConfigurationRepository config;
-    @Inject private ReadingsRepository readingsRepository;
-    @Inject private ReceiptsRepository receiptsRepository;
-    @Inject private DeliveryRepository deliveryRepository;
+    @Inject private UnsentDataRepository unsentDataRepository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -121,9 +119,7 @@ public class MainActivity extends RoboActivity implements StatusView {
     }
 
     private boolean hasUnsentData() {
-        return readingsRepository.isNotEmpty() ||
-                receiptsRepository.isNotEmpty() ||
-                deliveryRepository.isNotEmpty();
+        return unsentDataRepository.hasAny();
     }
 
 }
@@ -8,7 +8,10 @@ import main.java.com.dlohaiti.dlokiosk.client.DeliveriesClient;
 import main.java.com.dlohaiti.dlokiosk.client.PostResponse;
 import main.java.com.dlohaiti.dlokiosk.client.ReadingsClient;
 import main.java.com.dlohaiti.dlokiosk.client.ReceiptsClient;
+import main.java.com.dlohaiti.dlokiosk.db.ConfigurationKey;
+import main.java.com.dlohaiti.dlokiosk.db.ConfigurationRepository;
 import main.java.com.dlohaiti.dlokiosk.db.DeliveryRepository;
+import main.java.com.dlohaiti.dlokiosk.db.PageCallback;
 import main.java.com.dlohaiti.dlokiosk.db.ReadingsRepository;
 import main.java.com.dlohaiti.dlokiosk.db.ReceiptsRepository;
 import main.java.com.dlohaiti.dlokiosk.domain.Delivery;
@@ -17,10 +20,12 @@ import main.java.com.dlohaiti.dlokiosk.domain.Receipt;
 import com.google.inject.Inject;
 import roboguice.util.RoboAsyncTask;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 import com.dlohaiti.dlokiosk.R;
 
 public class ManualSyncReadingsTask extends RoboAsyncTask<String> {
+    private static final int DEFAULT_BATCH_SIZE = 50;
 
     @Inject private ReceiptsClient receiptsClient;
     @Inject private DeliveriesClient deliveriesClient;
@@ -28,6 +33,7 @@ public class ManualSyncReadingsTask extends RoboAsyncTask<String> {
     @Inject private ReceiptsRepository receiptsRepository;
     @Inject private DeliveryRepository deliveriesRepository;
     @Inject private ReadingsRepository readingsRepository;
+    @Inject private ConfigurationRepository configurationRepository;
 
     private Activity activity;
     private ProgressDialog progressDialog;
@@ -51,50 +57,57 @@ public class ManualSyncReadingsTask extends RoboAsyncTask<String> {
 
     @Override
     public String call() throws Exception {
-        Collection<Receipt> receipts = receiptsRepository.list();
-        Collection<Delivery> deliveries = deliveriesRepository.list();
-        Collection<Reading> readings = readingsRepository.list();
+        List<Delivery> deliveries = deliveriesRepository.list();
+        final int batchSize = batchSize();
 
-        if (receipts.isEmpty() && deliveries.isEmpty() && readings.isEmpty()) {
-            return activity.getString(R.string.no_readings_msg);
-        }
-
-        Failures failures = new Failures();
+        final Failures failures = new Failures();
 
-        for(Reading reading : readings) {
-            PostResponse response = readingsClient.send(reading);
-            if(response.isSuccess()) {
-                readingsRepository.remove(reading);
-            } else {
-                failures.add(new Failure(FailureKind.READING, response.getErrors()));
+        int readingCount = readingsRepository.forEachPage(batchSize, new PageCallback<Reading>() {
+            @Override public void onPage(List<Reading> readings) {
+                PostResponse response = readingsClient.send(readings, batchSize);
+                readingsRepository.removeAll(acknowledged(readings, response, FailureKind.READING, failures));
             }
-        }
+        });
 
-        for (Receipt receipt : receipts) {
-            PostResponse response = receiptsClient.send(receipt);
-            if(response.isSuccess()) {
-                receiptsRepository.remove(receipt);
-            } else {
-                failures.add(new Failure(FailureKind.RECEIPT, response.getErrors()));
+        int receiptCount = receiptsRepository.forEachPage(batchSize, new PageCallback<Receipt>() {
+            @Override public void onPage(List<Receipt> receipts) {
+                PostResponse response = receiptsClient.send(receipts, batchSize);
+                receiptsRepository.removeAll(acknowledged(receipts, response, FailureKind.RECEIPT, failures));
             }
-        }
+        });
 
-        for(Delivery delivery: deliveries) {
-            PostResponse response = deliveriesClient.send(delivery);
-            if(response.isSuccess()) {
-                deliveriesRepository.remove(delivery);
-            } else {
-                failures.add(new Failure(FailureKind.DELIVERY, response.getErrors()));
-            }
+        PostResponse deliveriesResponse = deliveriesClient.send(deliveries, batchSize);
+        deliveriesRepository.removeAll(acknowledged(deliveries, deliveriesResponse, FailureKind.DELIVERY, failures));
+
+        if (receiptCount == 0 && deliveries.isEmpty() && readingCount == 0) {
+            return activity.getString(R.string.no_readings_msg);
         }
 
         if (failures.isNotEmpty()) {
-            Integer readingCount = failures.countFor(FailureKind.READING);
-            Integer receiptCount = failures.countFor(FailureKind.RECEIPT);
+            Integer readingFailureCount = failures.countFor(FailureKind.READING);
+            Integer receiptFailureCount = failures.countFor(FailureKind.RECEIPT);
             Integer deliveryCount = failures.countFor(FailureKind.DELIVERY);
-            return activity.getString(R.string.send_error_msg, readingCount, receiptCount, deliveryCount);
+            return activity.getString(R.string.send_error_msg, readingFailureCount, receiptFailureCount, deliveryCount);
+        }
+        return activity.getString(R.string.send_success_msg, readingCount, receiptCount, deliveries.size());
+    }
+
+    private int batchSize() {
+        Integer batchSize = configurationRepository.getInt(ConfigurationKey.SYNC_BATCH_SIZE);
+        return batchSize == null || batchSize < 1 ? DEFAULT_BATCH_SIZE : batchSize;
+    }
+
+    private <T> List<T> acknowledged(List<T> items, PostResponse response, FailureKind kind, Failures failures) {
+        List<T> acknowledged = new ArrayList<T>();
+        for (int i = 0; i < items.size(); i++) {
+            PostResponse result = response.resultFor(i);
+            if (result.isSuccess()) {
+                acknowledged.add(items.get(i));
+            } else {
+                failures.add(new Failure(kind, result.getErrors()));
+            }
         }
-        return activity.getString(R.string.send_success_msg, readings.size(), receipts.size(), deliveries.size());
+        return acknowledged;
     }
 
     private void showMessage(String message) {
@@ -1,9 +1,7 @@
 package main.java.com.dlohaiti.dlokiosk;
 
-import android.graphics.Bitmap;
-
 public interface VisibleGridItem {
     Long getId();
 
-    Bitmap getImageResource();
+    String getIconKey();
 }
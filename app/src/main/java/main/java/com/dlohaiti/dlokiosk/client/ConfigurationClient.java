@@ -1,16 +1,47 @@
 package main.java.com.dlohaiti.dlokiosk.client;
 
 import com.google.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseExtractor;
+
+import java.io.IOException;
 
 public class ConfigurationClient {
+    private static final String DELTA_MANIPULATION = "configuration-delta";
+
     private final RestClient client;
+    private final ConfigurationReader reader;
 
     @Inject
-    public ConfigurationClient(RestClient client) {
+    public ConfigurationClient(RestClient client, ConfigurationReader reader) {
         this.client = client;
+        this.reader = reader;
     }
 
-    public Configuration fetch() {
-        return client.get("/configuration", Configuration.class);
+    /**
+     * Fetches the configuration changed since {@code etag}, if any. The server answers 304 when nothing
+     * changed, 226 (IM Used) with a delta, or 200 with the full configuration.
+     *
+     * @return false when the configuration is unchanged and the handler was not called
+     */
+    public boolean fetch(String etag, final ConfigurationHandler handler) {
+        HttpHeaders headers = new HttpHeaders();
+        if (StringUtils.isNotEmpty(etag)) {
+            headers.setIfNoneMatch(etag);
+            headers.set("A-IM", DELTA_MANIPULATION);
+        }
+        return client.get("/configuration", headers, new ResponseExtractor<Boolean>() {
+            @Override public Boolean extractData(ClientHttpResponse response) throws IOException {
+                if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                    return false;
+                }
+                handler.onStart(response.getStatusCode() == HttpStatus.IM_USED, response.getHeaders().getETag());
+                reader.read(response.getBody(), handler);
+                return true;
+            }
+        });
     }
 }
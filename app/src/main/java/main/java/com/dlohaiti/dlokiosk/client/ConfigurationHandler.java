@@ -0,0 +1,27 @@
+package main.java.com.dlohaiti.dlokiosk.client;
+
+public interface ConfigurationHandler {
+    /**
+     * Called before any item is read. A delta only carries changed items plus the keys of removed ones;
+     * anything not mentioned is unchanged.
+     */
+    void onStart(boolean delta, String etag);
+
+    void onProduct(ProductJson product);
+
+    void onPromotion(PromotionJson promotion);
+
+    void onParameter(ParameterJson parameter);
+
+    void onDeliveryAgent(DeliveryAgentJson agent);
+
+    void onDeliveryConfiguration(DeliveryConfigurationJson configuration);
+
+    void onProductRemoved(String sku);
+
+    void onPromotionRemoved(String sku);
+
+    void onParameterRemoved(String name);
+
+    void onDeliveryAgentRemoved(String name);
+}
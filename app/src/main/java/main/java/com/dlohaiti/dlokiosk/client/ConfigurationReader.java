@@ -0,0 +1,118 @@
+package main.java.com.dlohaiti.dlokiosk.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the /configuration payload one product, promotion, parameter or agent at a time,
+ * so only a single item (and its image) is held in memory while the rest is still on the wire.
+ * A delta payload additionally lists the keys of removed items under "removed".
+ */
+public class ConfigurationReader {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public ConfigurationReader() {
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public void read(InputStream in, ConfigurationHandler handler) throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(in);
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected configuration object but found " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("products".equals(field)) {
+                    if (isArray(parser)) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            handler.onProduct(mapper.readValue(parser, ProductJson.class));
+                        }
+                    }
+                } else if ("promotions".equals(field)) {
+                    if (isArray(parser)) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            handler.onPromotion(mapper.readValue(parser, PromotionJson.class));
+                        }
+                    }
+                } else if ("parameters".equals(field)) {
+                    if (isArray(parser)) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            handler.onParameter(mapper.readValue(parser, ParameterJson.class));
+                        }
+                    }
+                } else if ("delivery".equals(field)) {
+                    readDelivery(parser, handler);
+                } else if ("removed".equals(field)) {
+                    readRemoved(parser, handler);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    private void readDelivery(JsonParser parser, ConfigurationHandler handler) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("agents".equals(field)) {
+                if (isArray(parser)) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        handler.onDeliveryAgent(mapper.readValue(parser, DeliveryAgentJson.class));
+                    }
+                }
+            } else if ("configuration".equals(field) && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                handler.onDeliveryConfiguration(mapper.readValue(parser, DeliveryConfigurationJson.class));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readRemoved(JsonParser parser, ConfigurationHandler handler) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (!isArray(parser)) {
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                String key = parser.getText();
+                if ("products".equals(field)) {
+                    handler.onProductRemoved(key);
+                } else if ("promotions".equals(field)) {
+                    handler.onPromotionRemoved(key);
+                } else if ("parameters".equals(field)) {
+                    handler.onParameterRemoved(key);
+                } else if ("agents".equals(field)) {
+                    handler.onDeliveryAgentRemoved(key);
+                }
+            }
+        }
+    }
+
+    private boolean isArray(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.START_ARRAY) {
+            return true;
+        }
+        parser.skipChildren();
+        return false;
+    }
+}
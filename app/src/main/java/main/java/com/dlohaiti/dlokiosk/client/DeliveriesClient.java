@@ -3,6 +3,8 @@ package main.java.com.dlohaiti.dlokiosk.client;
 import main.java.com.dlohaiti.dlokiosk.domain.Delivery;
 import com.google.inject.Inject;
 
+import java.util.List;
+
 public class DeliveriesClient {
     private RestClient restClient;
 
@@ -11,7 +13,7 @@ public class DeliveriesClient {
         this.restClient = restClient;
     }
 
-    public PostResponse send(Delivery delivery) {
-        return restClient.post("/deliveries", delivery);
+    public PostResponse send(List<Delivery> deliveries, int batchSize) {
+        return restClient.postInBatches("/deliveries/batch", deliveries, batchSize);
     }
 }
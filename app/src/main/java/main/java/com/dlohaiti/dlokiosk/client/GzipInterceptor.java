@@ -0,0 +1,133 @@
+package main.java.com.dlohaiti.dlokiosk.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentCodingType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Asks the server for gzipped responses and, when enabled, gzips request bodies.
+ * The encoding headers are only added to the request handed down the chain, so the
+ * body is compressed exactly once; responses are inflated as they are read.
+ */
+public class GzipInterceptor implements ClientHttpRequestInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(GzipInterceptor.class);
+
+    private volatile boolean compressRequests = false;
+
+    public void setCompressRequests(boolean compressRequests) {
+        this.compressRequests = compressRequests;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.putAll(request.getHeaders());
+        headers.setAcceptEncoding(ContentCodingType.GZIP);
+        boolean compressed = compressRequests && body.length > 0;
+        if (compressed) {
+            headers.setContentEncoding(ContentCodingType.GZIP);
+        }
+        String call = request.getMethod() + " " + request.getURI().getPath();
+        ClientHttpResponse response = execution.execute(new HttpRequestWrapper(request) {
+            @Override public HttpHeaders getHeaders() {
+                return headers;
+            }
+        }, body);
+        return new CountingResponse(response, call, body.length, compressed);
+    }
+
+    private static class CountingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse response;
+        private final String call;
+        private final int bytesSent;
+        private final boolean compressedRequest;
+        private CountingInputStream body;
+
+        CountingResponse(ClientHttpResponse response, String call, int bytesSent, boolean compressedRequest) {
+            this.response = response;
+            this.call = call;
+            this.bytesSent = bytesSent;
+            this.compressedRequest = compressedRequest;
+        }
+
+        @Override public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new CountingInputStream(response.getBody());
+            }
+            return body;
+        }
+
+        @Override public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override public void close() {
+            HttpHeaders headers = response.getHeaders();
+            boolean compressedResponse = headers.getContentEncoding().contains(ContentCodingType.GZIP);
+            logger.info(String.format("%s: sent %d bytes%s, received %d bytes%s",
+                    call,
+                    bytesSent,
+                    compressedRequest ? " before gzip" : "",
+                    body == null ? 0 : body.getCount(),
+                    compressedResponse ? String.format(" (%d gzipped)", headers.getContentLength()) : ""));
+            response.close();
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -3,16 +3,21 @@ package main.java.com.dlohaiti.dlokiosk.client;
 import java.util.ArrayList;
 import java.util.List;
 
+import static java.util.Arrays.asList;
+
 public class PostResponse {
     private List<String> errors;
+    private List<PostResponse> results;
 
     public PostResponse() {
         this.errors = new ArrayList<String>();
+        this.results = new ArrayList<PostResponse>();
     }
 
 
     public PostResponse(List<String> errors) {
         this.errors = errors;
+        this.results = new ArrayList<PostResponse>();
     }
 
     public List<String> getErrors() {
@@ -23,7 +28,25 @@ public class PostResponse {
         this.errors = errors;
     }
 
+    public List<PostResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<PostResponse> results) {
+        this.results = results;
+    }
+
     public boolean isSuccess() {
         return errors.isEmpty();
     }
+
+    public PostResponse resultFor(int index) {
+        if (!isSuccess()) {
+            return this;
+        }
+        if (index < results.size()) {
+            return results.get(index);
+        }
+        return new PostResponse(asList("NO RESULT FOR ITEM " + index));
+    }
 }
@@ -3,6 +3,8 @@ package main.java.com.dlohaiti.dlokiosk.client;
 import main.java.com.dlohaiti.dlokiosk.domain.Reading;
 import com.google.inject.Inject;
 
+import java.util.List;
+
 public class ReadingsClient {
     private final RestClient restClient;
 
@@ -11,7 +13,7 @@ public class ReadingsClient {
         this.restClient = restClient;
     }
 
-    public PostResponse send(Reading reading) {
-        return restClient.post("/readings", reading);
+    public PostResponse send(List<Reading> readings, int batchSize) {
+        return restClient.postInBatches("/readings/batch", readings, batchSize);
     }
 }
@@ -3,6 +3,8 @@ package main.java.com.dlohaiti.dlokiosk.client;
 import main.java.com.dlohaiti.dlokiosk.domain.Receipt;
 import com.google.inject.Inject;
 
+import java.util.List;
+
 public class ReceiptsClient {
     private RestClient restClient;
 
@@ -11,7 +13,7 @@ public class ReceiptsClient {
         this.restClient = restClient;
     }
 
-    public PostResponse send(Receipt receipt) {
-        return restClient.post("/receipts", receipt);
+    public PostResponse send(List<Receipt> receipts, int batchSize) {
+        return restClient.postInBatches("/receipts/batch", receipts, batchSize);
     }
 }
@@ -5,38 +5,57 @@ import main.java.com.dlohaiti.dlokiosk.db.ConfigurationKey;
 import main.java.com.dlohaiti.dlokiosk.db.ConfigurationRepository;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.List;
 
 import static java.util.Arrays.asList;
 
+@Singleton
 public class RestClient {
 
     private static final Logger logger = LoggerFactory.getLogger(RestClient.class);
 
     private final RestTemplate restTemplate;
+    private final GzipInterceptor gzipInterceptor = new GzipInterceptor();
     private final ConfigurationRepository config;
-    private final String baseUrl;
+    private volatile Server server;
 
-    @Inject
     public RestClient(ConfigurationRepository config, KioskDate kioskDate) {
-        this.restTemplate = getJsonRestTemplate(kioskDate.getFormat());
+        this(config, kioskDate, new RestClientSettings());
+    }
+
+    @Inject
+    public RestClient(ConfigurationRepository config, KioskDate kioskDate, RestClientSettings settings) {
+        this.restTemplate = getJsonRestTemplate(kioskDate.getFormat(), settings);
         this.config = config;
-        this.baseUrl = config.get(ConfigurationKey.SERVER_URL);
     }
 
-    private RestTemplate getJsonRestTemplate(DateFormat format) {
+    private RestTemplate getJsonRestTemplate(DateFormat format, RestClientSettings settings) {
         RestTemplate restTemplate = new RestTemplate();
-        restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(settings.getConnectTimeoutMs());
+        requestFactory.setReadTimeout(settings.getReadTimeoutMs());
+        restTemplate.setRequestFactory(requestFactory);
+
+        List<ClientHttpRequestInterceptor> interceptors = new ArrayList<ClientHttpRequestInterceptor>();
+        interceptors.add(gzipInterceptor);
+        restTemplate.setInterceptors(interceptors);
 
         MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
         converter.getObjectMapper().setDateFormat(format);
@@ -47,29 +66,80 @@ public class RestClient {
         return restTemplate;
     }
 
-    private MultiValueMap<String, String> requestHeaders() {
-        HttpAuthentication authHeader = new HttpBasicAuthentication(
-                config.get(ConfigurationKey.KIOSK_ID),
-                config.get(ConfigurationKey.KIOSK_PASSWORD)
-        );
+    /**
+     * Drops the cached server url and credentials so the next call reads them from the configuration again.
+     */
+    public void invalidate() {
+        server = null;
+    }
+
+    private Server server() {
+        Server current = server;
+        if (current == null) {
+            current = new Server(config.get(ConfigurationKey.SERVER_URL), new HttpBasicAuthentication(
+                    config.get(ConfigurationKey.KIOSK_ID),
+                    config.get(ConfigurationKey.KIOSK_PASSWORD)
+            ));
+            gzipInterceptor.setCompressRequests(Boolean.parseBoolean(config.get(ConfigurationKey.GZIP_REQUESTS)));
+            server = current;
+        }
+        return current;
+    }
+
+    private HttpHeaders requestHeaders(Server server) {
         HttpHeaders requestHeaders = new HttpHeaders();
-        requestHeaders.setAuthorization(authHeader);
+        requestHeaders.setAuthorization(server.authentication);
         requestHeaders.setContentType(MediaType.APPLICATION_JSON);
         return requestHeaders;
     }
 
     public <T> T get(String uri, Class<T> responseType) {
-        return restTemplate.exchange(this.baseUrl + uri, HttpMethod.GET, new HttpEntity<Object>(requestHeaders()), responseType, new Object()).getBody();
+        Server server = server();
+        return restTemplate.exchange(server.baseUrl + uri, HttpMethod.GET, new HttpEntity<Object>(requestHeaders(server)), responseType, new Object()).getBody();
+    }
+
+    public <T> T get(String uri, final HttpHeaders headers, ResponseExtractor<T> responseExtractor) {
+        final Server server = server();
+        return restTemplate.execute(server.baseUrl + uri, HttpMethod.GET, new RequestCallback() {
+            @Override public void doWithRequest(ClientHttpRequest request) throws IOException {
+                request.getHeaders().putAll(requestHeaders(server));
+                request.getHeaders().setAccept(asList(MediaType.APPLICATION_JSON));
+                request.getHeaders().putAll(headers);
+            }
+        }, responseExtractor);
     }
 
     public PostResponse post(String uri, Object data) {
-        String url = this.baseUrl + uri;
+        Server server = server();
+        String url = server.baseUrl + uri;
         try {
-            ResponseEntity<PostResponse> responseEntity = restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<Object>(data, requestHeaders()), PostResponse.class, new Object());
+            ResponseEntity<PostResponse> responseEntity = restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<Object>(data, requestHeaders(server)), PostResponse.class, new Object());
             return responseEntity.getBody();
         } catch (HttpClientErrorException e) {
             logger.error("Error " + e.getStatusCode() + " while posting data to url " + url, e);
             return new PostResponse(asList("HTTP " + e.getStatusCode() + " ERROR"));
         }
     }
+
+    public PostResponse postInBatches(String uri, List<?> items, int batchSize) {
+        PostResponse combined = new PostResponse();
+        for (int start = 0; start < items.size(); start += batchSize) {
+            List<?> batch = items.subList(start, Math.min(start + batchSize, items.size()));
+            PostResponse response = post(uri, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                combined.getResults().add(response.resultFor(i));
+            }
+        }
+        return combined;
+    }
+
+    private static class Server {
+        private final String baseUrl;
+        private final HttpAuthentication authentication;
+
+        Server(String baseUrl, HttpAuthentication authentication) {
+            this.baseUrl = baseUrl;
+            this.authentication = authentication;
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package main.java.com.dlohaiti.dlokiosk.client;
+
+public class RestClientSettings {
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    public RestClientSettings() {
+        this(15000, 60000);
+    }
+
+    public RestClientSettings(int connectTimeoutMs, int readTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public int getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+}
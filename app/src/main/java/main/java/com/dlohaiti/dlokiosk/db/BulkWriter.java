@@ -0,0 +1,41 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.sqlite.SQLiteStatement;
+
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.insertInto;
+
+/**
+ * Inserts rows of one table through a single compiled INSERT. The statement is compiled once per
+ * {@link Transaction} and each row only binds its values, by position, in the order of the columns.
+ */
+public class BulkWriter<T> {
+    public interface Binder<T> {
+        void bindValues(SQLiteStatement statement, T item);
+    }
+
+    private final String sql;
+    private final Binder<T> binder;
+
+    public BulkWriter(String tableName, String[] columnNames, Binder<T> binder) {
+        this.sql = insertInto(tableName, columnNames);
+        this.binder = binder;
+    }
+
+    /**
+     * @return the row id of the inserted row, or -1 if it could not be inserted
+     */
+    public long insert(Transaction transaction, T item) {
+        SQLiteStatement statement = transaction.compile(sql);
+        binder.bindValues(statement, item);
+        return statement.executeInsert();
+    }
+
+    public boolean insertAll(Transaction transaction, Iterable<T> items) {
+        for (T item : items) {
+            if (insert(transaction, item) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
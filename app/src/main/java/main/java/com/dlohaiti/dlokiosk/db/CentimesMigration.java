@@ -0,0 +1,57 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ProductsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ReceiptLineItemsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ReceiptsTable;
+import main.java.com.dlohaiti.dlokiosk.domain.Money;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
+
+/**
+ * Adds an INTEGER centimes column next to each price and total, filled from the existing TEXT and
+ * REAL amounts, so money can be read, summed and compared without BigDecimal.
+ */
+public class CentimesMigration implements Migration {
+    private static final String TAG = CentimesMigration.class.getSimpleName();
+
+    @Override public int getVersion() {
+        return 8;
+    }
+
+    @Override public void apply(SQLiteDatabase db) {
+        addCentimes(db, ProductsTable.TABLE_NAME, ProductsTable.ID, ProductsTable.PRICE, ProductsTable.PRICE_CENTIMES);
+        addCentimes(db, ReceiptsTable.TABLE_NAME, ReceiptsTable.ID, ReceiptsTable.TOTAL, ReceiptsTable.TOTAL_CENTIMES);
+        addCentimes(db, ReceiptLineItemsTable.TABLE_NAME, ReceiptLineItemsTable.ID, ReceiptLineItemsTable.PRICE, ReceiptLineItemsTable.PRICE_CENTIMES);
+    }
+
+    private void addCentimes(SQLiteDatabase db, String table, String idColumn, String amountColumn, String centimesColumn) {
+        db.execSQL(String.format("ALTER TABLE %s ADD COLUMN %s INTEGER", table, centimesColumn));
+        Map<Long, Long> centimes = new HashMap<Long, Long>();
+        Cursor cursor = db.query(table, new String[]{idColumn, amountColumn}, amountColumn + " IS NOT NULL", null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                try {
+                    centimes.put(cursor.getLong(0), new Money(new BigDecimal(cursor.getString(1))).getCentimes());
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, String.format("Leaving unparseable %s.%s of row %d empty.", table, amountColumn, cursor.getLong(0)), e);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        for (Map.Entry<Long, Long> entry : centimes.entrySet()) {
+            ContentValues values = new ContentValues();
+            values.put(centimesColumn, entry.getValue());
+            db.update(table, values, where(idColumn), matches(entry.getKey()));
+        }
+    }
+}
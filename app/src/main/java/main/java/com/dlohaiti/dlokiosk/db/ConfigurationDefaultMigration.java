@@ -0,0 +1,33 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ConfigurationTable;
+
+public class ConfigurationDefaultMigration implements Migration {
+    private final int version;
+    private final ConfigurationKey key;
+    private final String defaultValue;
+
+    public ConfigurationDefaultMigration(int version, ConfigurationKey key, String defaultValue) {
+        this.version = version;
+        this.key = key;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override public int getVersion() {
+        return version;
+    }
+
+    @Override public void apply(SQLiteDatabase db) {
+        String insertConfig = String.format(
+                "INSERT INTO %s(%s, %s) SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM %s WHERE %s = ?)",
+                ConfigurationTable.TABLE_NAME,
+                ConfigurationTable.KEY,
+                ConfigurationTable.VALUE,
+                ConfigurationTable.TABLE_NAME,
+                ConfigurationTable.KEY
+        );
+        db.execSQL(insertConfig, new Object[]{key.name(), defaultValue, key.name()});
+    }
+}
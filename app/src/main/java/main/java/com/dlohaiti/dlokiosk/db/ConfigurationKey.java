@@ -5,5 +5,8 @@ public enum ConfigurationKey {
     KIOSK_PASSWORD,
     DELIVERY_TRACKING_MIN,
     DELIVERY_TRACKING_MAX,
-    SERVER_URL, LAST_UPDATE, DELIVERY_TRACKING_DEFAULT
+    SERVER_URL, LAST_UPDATE, DELIVERY_TRACKING_DEFAULT,
+    SYNC_BATCH_SIZE,
+    GZIP_REQUESTS,
+    CONFIGURATION_ETAG
 }
@@ -21,13 +21,11 @@ public class ConfigurationRepository {
 
     public String get(ConfigurationKey key) {
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
-            Cursor cursor = rdb.query(KioskDatabase.ConfigurationTable.TABLE_NAME, columns, where(KioskDatabase.ConfigurationTable.KEY), matches(key.name()), null, null, null);
+        Cursor cursor = rdb.query(KioskDatabase.ConfigurationTable.TABLE_NAME, columns, where(KioskDatabase.ConfigurationTable.KEY), matches(key.name()), null, null, null);
         try {
             String value = "";
             if(cursor.moveToFirst()) {
                 value = cursor.getString(1);
-                rdb.setTransactionSuccessful();
             }
             return value;
         } catch (Exception e) {
@@ -35,7 +33,6 @@ public class ConfigurationRepository {
             return "";
         } finally {
             cursor.close();
-            rdb.endTransaction();
         }
     }
 
@@ -0,0 +1,11 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+public class DatabaseException extends RuntimeException {
+    public DatabaseException(String message) {
+        super(message);
+    }
+
+    public DatabaseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
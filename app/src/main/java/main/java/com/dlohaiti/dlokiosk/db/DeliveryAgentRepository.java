@@ -1,8 +1,8 @@
 package main.java.com.dlohaiti.dlokiosk.db;
 
-import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 import main.java.com.dlohaiti.dlokiosk.domain.DeliveryAgent;
 import com.google.inject.Inject;
@@ -12,10 +12,20 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.DeliveryAgentsTable.TABLE_NAME;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.bind;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
 
 public class DeliveryAgentRepository {
     private final static String TAG = DeliveryAgentRepository.class.getSimpleName();
     private final static String[] COLUMNS = new String[]{KioskDatabase.DeliveryAgentsTable.NAME};
+    private final static BulkWriter<DeliveryAgent> writer = new BulkWriter<DeliveryAgent>(TABLE_NAME,
+            new String[]{KioskDatabase.DeliveryAgentsTable.NAME},
+            new BulkWriter.Binder<DeliveryAgent>() {
+                @Override public void bindValues(SQLiteStatement insert, DeliveryAgent agent) {
+                    bind(insert, 1, agent.getName());
+                }
+            });
     private final KioskDatabase db;
 
     @Inject
@@ -23,19 +33,72 @@ public class DeliveryAgentRepository {
         this.db = db;
     }
 
-    public boolean replaceAll(List<DeliveryAgent> agents) {
+    public boolean replaceAll(final List<DeliveryAgent> agents) {
+        return db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                transaction.getDatabase().delete(TABLE_NAME, null, null);
+                return writer.insertAll(transaction, agents);
+            }
+        });
+    }
+
+    public boolean deleteAll() {
         SQLiteDatabase wdb = db.getWritableDatabase();
         wdb.beginTransaction();
         try {
             wdb.delete(TABLE_NAME, null, null);
-            for(DeliveryAgent agent : agents) {
-                ContentValues values = new ContentValues();
-                values.put(KioskDatabase.DeliveryAgentsTable.NAME, agent.getName());
-                wdb.insert(TABLE_NAME, null, values);
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to delete all delivery agents.", e);
+            return false;
+        } finally {
+            wdb.endTransaction();
+        }
+    }
+
+    public boolean add(final DeliveryAgent agent) {
+        boolean added = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return add(transaction, agent);
             }
+        });
+        if (!added) {
+            Log.e(TAG, String.format("Failed to add delivery agent %s.", agent.getName()));
+        }
+        return added;
+    }
+
+    public boolean add(Transaction transaction, DeliveryAgent agent) {
+        return writer.insert(transaction, agent) != -1;
+    }
+
+    public boolean save(final DeliveryAgent agent) {
+        boolean saved = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                Cursor cursor = transaction.getDatabase().query(TABLE_NAME, COLUMNS, where(KioskDatabase.DeliveryAgentsTable.NAME), matches(agent.getName()), null, null, null);
+                try {
+                    return cursor.moveToFirst() || add(transaction, agent);
+                } finally {
+                    cursor.close();
+                }
+            }
+        });
+        if (!saved) {
+            Log.e(TAG, String.format("Failed to save delivery agent %s.", agent.getName()));
+        }
+        return saved;
+    }
+
+    public boolean remove(String name) {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.beginTransaction();
+        try {
+            wdb.delete(TABLE_NAME, where(KioskDatabase.DeliveryAgentsTable.NAME), matches(name));
             wdb.setTransactionSuccessful();
             return true;
         } catch (Exception e) {
+            Log.e(TAG, String.format("Failed to remove delivery agent %s.", name), e);
             return false;
         } finally {
             wdb.endTransaction();
@@ -45,7 +108,6 @@ public class DeliveryAgentRepository {
     public SortedSet<DeliveryAgent> findAll() {
         SortedSet<DeliveryAgent> agents = new TreeSet<DeliveryAgent>();
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
         Cursor cursor = rdb.query(TABLE_NAME, COLUMNS, null, null, null, null, null);
         try {
             cursor.moveToFirst();
@@ -53,12 +115,10 @@ public class DeliveryAgentRepository {
                 agents.add(new DeliveryAgent(cursor.getString(0)));
                 cursor.moveToNext();
             }
-            rdb.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(TAG, "Failed to load delivery agents from database", e);
         } finally {
             cursor.close();
-            rdb.endTransaction();
         }
         return agents;
     }
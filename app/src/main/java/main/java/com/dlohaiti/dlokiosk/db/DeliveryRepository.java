@@ -5,7 +5,6 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 import main.java.com.dlohaiti.dlokiosk.DeliveryType;
-import main.java.com.dlohaiti.dlokiosk.KioskDate;
 import main.java.com.dlohaiti.dlokiosk.domain.Delivery;
 import com.google.inject.Inject;
 
@@ -15,32 +14,33 @@ import java.util.List;
 
 import static android.database.DatabaseUtils.queryNumEntries;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.DeliveriesTable.*;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.dateAt;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.exists;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.millis;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
 
 public class DeliveryRepository {
     private final static String TAG = DeliveryRepository.class.getSimpleName();
     private final KioskDatabase db;
-    private final KioskDate kioskDate;
     private final static String[] COLUMNS = new String[]{
             KioskDatabase.DeliveriesTable.ID,
             QUANTITY,
             DELIVERY_TYPE,
-            CREATED_DATE,
+            CREATED_MILLIS,
             AGENT_NAME
     };
 
     @Inject
-    public DeliveryRepository(KioskDatabase db, KioskDate kioskDate) {
+    public DeliveryRepository(KioskDatabase db) {
         this.db = db;
-        this.kioskDate = kioskDate;
     }
 
     public boolean save(Delivery delivery) {
         ContentValues values = new ContentValues();
         values.put(QUANTITY, delivery.getQuantity());
         values.put(DELIVERY_TYPE, delivery.getType().name());
-        values.put(CREATED_DATE, kioskDate.getFormat().format(delivery.getCreatedDate()));
+        values.put(CREATED_MILLIS, millis(delivery.getCreatedDate()));
         values.put(AGENT_NAME, delivery.getAgentName());
 
         SQLiteDatabase wdb = db.getWritableDatabase();
@@ -60,7 +60,6 @@ public class DeliveryRepository {
     public List<Delivery> list() {
         List<Delivery> deliveries = new ArrayList<Delivery>();
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
         Cursor cursor = rdb.query(TABLE_NAME, COLUMNS, null, null, null, null, null);
         try {
             cursor.moveToFirst();
@@ -68,19 +67,17 @@ public class DeliveryRepository {
                 Integer id = cursor.getInt(0);
                 Integer quantity = cursor.getInt(1);
                 DeliveryType type = DeliveryType.valueOf(cursor.getString(2));
-                Date createdDate = kioskDate.getFormat().parse(cursor.getString(3));
+                Date createdDate = dateAt(cursor, 3);
                 String agentName = cursor.getString(4);
                 deliveries.add(new Delivery(id, quantity, type, createdDate, agentName));
                 cursor.moveToNext();
             }
-            rdb.setTransactionSuccessful();
             return deliveries;
         } catch (Exception e) {
             Log.e(TAG, "Failed to load all deliveries from database.", e);
             return new ArrayList<Delivery>();
         } finally {
             cursor.close();
-            rdb.endTransaction();
         }
     }
 
@@ -99,7 +96,28 @@ public class DeliveryRepository {
         }
     }
 
+    public boolean removeAll(List<Delivery> deliveries) {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.beginTransaction();
+        try {
+            for (Delivery delivery : deliveries) {
+                wdb.delete(TABLE_NAME, where(ID), matches(delivery.getId()));
+            }
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, String.format("Failed to delete %d deliveries from the database", deliveries.size()), e);
+            return false;
+        } finally {
+            wdb.endTransaction();
+        }
+    }
+
+    public int count() {
+        return (int) queryNumEntries(db.getReadableDatabase(), TABLE_NAME);
+    }
+
     public boolean isNotEmpty() {
-        return queryNumEntries(db.getReadableDatabase(), TABLE_NAME) > 0;
+        return exists(db.getReadableDatabase(), TABLE_NAME);
     }
 }
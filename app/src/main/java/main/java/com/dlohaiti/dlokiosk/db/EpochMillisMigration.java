@@ -0,0 +1,65 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import main.java.com.dlohaiti.dlokiosk.KioskDate;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.DeliveriesTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.PromotionsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ReadingsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ReceiptsTable;
+
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
+
+/**
+ * Adds an INTEGER epoch-millis column next to each formatted date column and fills it from the
+ * existing text, so rows can be decoded without parsing dates.
+ */
+public class EpochMillisMigration implements Migration {
+    private static final String TAG = EpochMillisMigration.class.getSimpleName();
+    private final KioskDate kioskDate;
+
+    public EpochMillisMigration(KioskDate kioskDate) {
+        this.kioskDate = kioskDate;
+    }
+
+    @Override public int getVersion() {
+        return 7;
+    }
+
+    @Override public void apply(SQLiteDatabase db) {
+        addMillis(db, ReceiptsTable.TABLE_NAME, ReceiptsTable.ID, ReceiptsTable.CREATED_AT, ReceiptsTable.CREATED_MILLIS);
+        addMillis(db, DeliveriesTable.TABLE_NAME, DeliveriesTable.ID, DeliveriesTable.CREATED_DATE, DeliveriesTable.CREATED_MILLIS);
+        addMillis(db, ReadingsTable.TABLE_NAME, ReadingsTable.ID, ReadingsTable.CREATED_DATE, ReadingsTable.CREATED_MILLIS);
+        addMillis(db, PromotionsTable.TABLE_NAME, PromotionsTable.ID, PromotionsTable.START_DATE, PromotionsTable.START_MILLIS);
+        addMillis(db, PromotionsTable.TABLE_NAME, PromotionsTable.ID, PromotionsTable.END_DATE, PromotionsTable.END_MILLIS);
+    }
+
+    private void addMillis(SQLiteDatabase db, String table, String idColumn, String dateColumn, String millisColumn) {
+        db.execSQL(String.format("ALTER TABLE %s ADD COLUMN %s INTEGER", table, millisColumn));
+        Map<Long, Long> millis = new HashMap<Long, Long>();
+        Cursor cursor = db.query(table, new String[]{idColumn, dateColumn}, dateColumn + " IS NOT NULL", null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                try {
+                    millis.put(cursor.getLong(0), kioskDate.parse(cursor.getString(1)).getTime());
+                } catch (ParseException e) {
+                    Log.w(TAG, String.format("Leaving unparseable %s.%s of row %d empty.", table, dateColumn, cursor.getLong(0)), e);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        for (Map.Entry<Long, Long> entry : millis.entrySet()) {
+            ContentValues values = new ContentValues();
+            values.put(millisColumn, entry.getValue());
+            db.update(table, values, where(idColumn), matches(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Base64;
+import android.util.Log;
+import main.java.com.dlohaiti.dlokiosk.IconStore;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ProductsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.PromotionsTable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
+
+public class IconFilesMigration implements Migration {
+    private static final String TAG = IconFilesMigration.class.getSimpleName();
+    private final IconStore iconStore;
+
+    public IconFilesMigration(IconStore iconStore) {
+        this.iconStore = iconStore;
+    }
+
+    @Override public int getVersion() {
+        return 3;
+    }
+
+    @Override public void apply(SQLiteDatabase db) {
+        moveIcons(db, ProductsTable.TABLE_NAME, ProductsTable.ID, ProductsTable.ICON, ProductsTable.ICON_KEY);
+        moveIcons(db, PromotionsTable.TABLE_NAME, PromotionsTable.ID, PromotionsTable.ICON, PromotionsTable.ICON_KEY);
+    }
+
+    private void moveIcons(SQLiteDatabase db, String table, String idColumn, String iconColumn, String iconKeyColumn) {
+        db.execSQL(String.format("ALTER TABLE %s ADD COLUMN %s TEXT", table, iconKeyColumn));
+        Map<Long, String> iconKeys = new HashMap<Long, String>();
+        Cursor cursor = db.query(table, new String[]{idColumn, iconColumn}, iconColumn + " IS NOT NULL", null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                iconKeys.put(cursor.getLong(0), iconStore.save(decode(cursor.getString(1))));
+            }
+        } finally {
+            cursor.close();
+        }
+        for (Map.Entry<Long, String> entry : iconKeys.entrySet()) {
+            ContentValues values = new ContentValues();
+            values.put(iconKeyColumn, entry.getValue());
+            values.putNull(iconColumn);
+            db.update(table, values, where(idColumn), matches(entry.getKey()));
+        }
+    }
+
+    private byte[] decode(String encodedIcon) {
+        try {
+            return Base64.decode(encodedIcon, Base64.DEFAULT);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Dropping icon that is not valid Base64.", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ConfigurationTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.DeliveriesTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.DeliveryAgentsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.MeasurementsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ParametersTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ProductsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.PromotionsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ReadingsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ReceiptLineItemsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ReceiptsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.SamplingSitesParametersTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.SamplingSitesTable;
+
+public class InitialSchemaMigration implements Migration {
+    @Override public int getVersion() {
+        return 1;
+    }
+
+    @Override public void apply(SQLiteDatabase db) {
+        String createReceipts = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s INTEGER," +
+                        "%s TEXT," +
+                        "%s TEXT" +
+                        ")",
+                ReceiptsTable.TABLE_NAME,
+                ReceiptsTable.ID,
+                ReceiptsTable.TOTAL_GALLONS,
+                ReceiptsTable.TOTAL,
+                ReceiptsTable.CREATED_AT
+        );
+        String createReceiptLineItems = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s INTEGER," +
+                        "%s TEXT," +
+                        "%s INTEGER," +
+                        "%s TEXT," +
+                        "%s TEXT" +
+                        ")",
+                ReceiptLineItemsTable.TABLE_NAME,
+                ReceiptLineItemsTable.ID,
+                ReceiptLineItemsTable.RECEIPT_ID,
+                ReceiptLineItemsTable.SKU,
+                ReceiptLineItemsTable.QUANTITY,
+                ReceiptLineItemsTable.TYPE,
+                ReceiptLineItemsTable.PRICE
+        );
+        String createProducts = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s REAL," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s INTEGER," +
+                        "%s INTEGER," +
+                        "%s INTEGER" +
+                        ")",
+                ProductsTable.TABLE_NAME,
+                ProductsTable.ID,
+                ProductsTable.SKU,
+                ProductsTable.DESCRIPTION,
+                ProductsTable.ICON,
+                ProductsTable.PRICE,
+                ProductsTable.CURRENCY,
+                ProductsTable.REQUIRES_QUANTITY,
+                ProductsTable.MINIMUM_QUANTITY,
+                ProductsTable.MAXIMUM_QUANTITY,
+                ProductsTable.GALLONS
+        );
+        String createConfiguration = String.format(
+                "CREATE TABLE %s(" +
+                        "%s TEXT," +
+                        "%s TEXT" +
+                        ")",
+                ConfigurationTable.TABLE_NAME,
+                ConfigurationTable.KEY,
+                ConfigurationTable.VALUE
+        );
+        String createDeliveries = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s TEXT," +
+                        "%s INTEGER," +
+                        "%s TEXT," +
+                        "%s TEXT" +
+                        ")",
+                DeliveriesTable.TABLE_NAME,
+                DeliveriesTable.ID,
+                DeliveriesTable.DELIVERY_TYPE,
+                DeliveriesTable.QUANTITY,
+                DeliveriesTable.CREATED_DATE,
+                DeliveriesTable.AGENT_NAME
+        );
+        String createDeliveryAgents = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s TEXT" +
+                        ")",
+                DeliveryAgentsTable.TABLE_NAME,
+                DeliveryAgentsTable.ID,
+                DeliveryAgentsTable.NAME
+        );
+        String createPromotions = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT" +
+                        ")",
+                PromotionsTable.TABLE_NAME,
+                PromotionsTable.ID,
+                PromotionsTable.APPLIES_TO,
+                PromotionsTable.PRODUCT_SKU,
+                PromotionsTable.START_DATE,
+                PromotionsTable.END_DATE,
+                PromotionsTable.AMOUNT,
+                PromotionsTable.TYPE,
+                PromotionsTable.SKU,
+                PromotionsTable.ICON
+        );
+        String createSamplingSites = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s TEXT" +
+                        ")",
+                SamplingSitesTable.TABLE_NAME,
+                SamplingSitesTable.ID,
+                SamplingSitesTable.NAME
+        );
+        String createParameters = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s TEXT," +
+                        "%s INTEGER" +
+                        ")",
+                ParametersTable.TABLE_NAME,
+                ParametersTable.ID,
+                ParametersTable.NAME,
+                ParametersTable.UNIT_OF_MEASURE,
+                ParametersTable.MINIMUM,
+                ParametersTable.MAXIMUM,
+                ParametersTable.IS_OK_NOT_OK,
+                ParametersTable.PRIORITY
+        );
+        String createSamplingSiteParameters = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s INTEGER," +
+                        "%s INTEGER" +
+                        ")",
+                SamplingSitesParametersTable.TABLE_NAME,
+                SamplingSitesParametersTable.ID,
+                SamplingSitesParametersTable.PARAMETER_ID,
+                SamplingSitesParametersTable.SITE_ID
+        );
+        String createMeasurements = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s INTEGER," +
+                        "%s TEXT" +
+                ")",
+                ReadingsTable.TABLE_NAME,
+                ReadingsTable.ID,
+                ReadingsTable.SAMPLING_SITE_NAME,
+                ReadingsTable.CREATED_DATE
+        );
+        String createMeasurementLineItems = String.format(
+                "CREATE TABLE %s(" +
+                        "%s INTEGER PRIMARY KEY," +
+                        "%s INTEGER," +
+                        "%s TEXT," +
+                        "%s TEXT" +
+                        ")",
+                MeasurementsTable.TABLE_NAME,
+                MeasurementsTable.ID,
+                MeasurementsTable.READING_ID,
+                MeasurementsTable.PARAMETER_NAME,
+                MeasurementsTable.VALUE
+        );
+
+        String insertConfig = String.format(
+                "INSERT INTO %s(%s, %s) VALUES (?, ?)",
+                ConfigurationTable.TABLE_NAME,
+                ConfigurationTable.KEY,
+                ConfigurationTable.VALUE
+        );
+
+        db.execSQL(createDeliveryAgents);
+        db.execSQL(createMeasurements);
+        db.execSQL(createMeasurementLineItems);
+        db.execSQL(createSamplingSites);
+        db.execSQL(createParameters);
+        db.execSQL(createSamplingSiteParameters);
+        db.execSQL(createReceipts);
+        db.execSQL(createReceiptLineItems);
+        db.execSQL(createProducts);
+        db.execSQL(createConfiguration);
+        db.execSQL(createDeliveries);
+        db.execSQL(createPromotions);
+        db.execSQL(insertConfig, new Object[]{ConfigurationKey.KIOSK_ID.name(), "kiosk01"});
+        db.execSQL(insertConfig, new Object[]{ConfigurationKey.KIOSK_PASSWORD.name(), "pw"});
+        db.execSQL(insertConfig, new Object[]{ConfigurationKey.DELIVERY_TRACKING_MIN.name(), "0"});
+        db.execSQL(insertConfig, new Object[]{ConfigurationKey.DELIVERY_TRACKING_MAX.name(), "24"});
+        db.execSQL(insertConfig, new Object[]{ConfigurationKey.DELIVERY_TRACKING_DEFAULT.name(), "24"});
+        db.execSQL(insertConfig, new Object[]{ConfigurationKey.SERVER_URL.name(), "http://10.0.2.2:8080/dloserver"});
+        db.execSQL(insertConfig, new Object[]{ConfigurationKey.LAST_UPDATE.name(), "20130615"});
+    }
+}
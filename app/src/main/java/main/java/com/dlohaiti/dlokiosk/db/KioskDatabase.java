@@ -1,227 +1,95 @@
 package main.java.com.dlohaiti.dlokiosk.db;
 
 import android.content.Context;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import main.java.com.dlohaiti.dlokiosk.IconStore;
+import main.java.com.dlohaiti.dlokiosk.KioskDate;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
 
 @Singleton
 public class KioskDatabase extends SQLiteOpenHelper {
+    private final static String TAG = KioskDatabase.class.getSimpleName();
     private final static String DATABASE_NAME = "kiosk.db";
-    private final static int DATABASE_VERSION = 1;
+    public final static int DATABASE_VERSION = 9;
+    private final KioskDatabaseSettings settings;
+    private final List<Migration> migrations;
 
-    @Inject
     public KioskDatabase(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, new KioskDatabaseSettings(), new IconStore(context));
     }
 
-    @Override public void onCreate(SQLiteDatabase db) {
-        String createReceipts = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s INTEGER," +
-                        "%s TEXT," +
-                        "%s TEXT" +
-                        ")",
-                ReceiptsTable.TABLE_NAME,
-                ReceiptsTable.ID,
-                ReceiptsTable.TOTAL_GALLONS,
-                ReceiptsTable.TOTAL,
-                ReceiptsTable.CREATED_AT
-        );
-        String createReceiptLineItems = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s INTEGER," +
-                        "%s TEXT," +
-                        "%s INTEGER," +
-                        "%s TEXT," +
-                        "%s TEXT" +
-                        ")",
-                ReceiptLineItemsTable.TABLE_NAME,
-                ReceiptLineItemsTable.ID,
-                ReceiptLineItemsTable.RECEIPT_ID,
-                ReceiptLineItemsTable.SKU,
-                ReceiptLineItemsTable.QUANTITY,
-                ReceiptLineItemsTable.TYPE,
-                ReceiptLineItemsTable.PRICE
-        );
-        String createProducts = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s REAL," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s INTEGER," +
-                        "%s INTEGER," +
-                        "%s INTEGER" +
-                        ")",
-                ProductsTable.TABLE_NAME,
-                ProductsTable.ID,
-                ProductsTable.SKU,
-                ProductsTable.DESCRIPTION,
-                ProductsTable.ICON,
-                ProductsTable.PRICE,
-                ProductsTable.CURRENCY,
-                ProductsTable.REQUIRES_QUANTITY,
-                ProductsTable.MINIMUM_QUANTITY,
-                ProductsTable.MAXIMUM_QUANTITY,
-                ProductsTable.GALLONS
-        );
-        String createConfiguration = String.format(
-                "CREATE TABLE %s(" +
-                        "%s TEXT," +
-                        "%s TEXT" +
-                        ")",
-                ConfigurationTable.TABLE_NAME,
-                ConfigurationTable.KEY,
-                ConfigurationTable.VALUE
-        );
-        String createDeliveries = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s TEXT," +
-                        "%s INTEGER," +
-                        "%s TEXT," +
-                        "%s TEXT" +
-                        ")",
-                DeliveriesTable.TABLE_NAME,
-                DeliveriesTable.ID,
-                DeliveriesTable.DELIVERY_TYPE,
-                DeliveriesTable.QUANTITY,
-                DeliveriesTable.CREATED_DATE,
-                DeliveriesTable.AGENT_NAME
-        );
-        String createDeliveryAgents = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s TEXT" +
-                        ")",
-                DeliveryAgentsTable.TABLE_NAME,
-                DeliveryAgentsTable.ID,
-                DeliveryAgentsTable.NAME
-        );
-        String createPromotions = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT" +
-                        ")",
-                PromotionsTable.TABLE_NAME,
-                PromotionsTable.ID,
-                PromotionsTable.APPLIES_TO,
-                PromotionsTable.PRODUCT_SKU,
-                PromotionsTable.START_DATE,
-                PromotionsTable.END_DATE,
-                PromotionsTable.AMOUNT,
-                PromotionsTable.TYPE,
-                PromotionsTable.SKU,
-                PromotionsTable.ICON
-        );
-        String createSamplingSites = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s TEXT" +
-                        ")",
-                SamplingSitesTable.TABLE_NAME,
-                SamplingSitesTable.ID,
-                SamplingSitesTable.NAME
-        );
-        String createParameters = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s TEXT," +
-                        "%s INTEGER" +
-                        ")",
-                ParametersTable.TABLE_NAME,
-                ParametersTable.ID,
-                ParametersTable.NAME,
-                ParametersTable.UNIT_OF_MEASURE,
-                ParametersTable.MINIMUM,
-                ParametersTable.MAXIMUM,
-                ParametersTable.IS_OK_NOT_OK,
-                ParametersTable.PRIORITY
-        );
-        String createSamplingSiteParameters = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s INTEGER," +
-                        "%s INTEGER" +
-                        ")",
-                SamplingSitesParametersTable.TABLE_NAME,
-                SamplingSitesParametersTable.ID,
-                SamplingSitesParametersTable.PARAMETER_ID,
-                SamplingSitesParametersTable.SITE_ID
-        );
-        String createMeasurements = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s INTEGER," +
-                        "%s TEXT" +
-                ")",
-                ReadingsTable.TABLE_NAME,
-                ReadingsTable.ID,
-                ReadingsTable.SAMPLING_SITE_NAME,
-                ReadingsTable.CREATED_DATE
-        );
-        String createMeasurementLineItems = String.format(
-                "CREATE TABLE %s(" +
-                        "%s INTEGER PRIMARY KEY," +
-                        "%s INTEGER," +
-                        "%s TEXT," +
-                        "%s TEXT" +
-                        ")",
-                MeasurementsTable.TABLE_NAME,
-                MeasurementsTable.ID,
-                MeasurementsTable.READING_ID,
-                MeasurementsTable.PARAMETER_NAME,
-                MeasurementsTable.VALUE
+    @Inject
+    public KioskDatabase(Context context, KioskDatabaseSettings settings, IconStore iconStore) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.settings = settings;
+        this.migrations = asList(
+                new InitialSchemaMigration(),
+                new LookupIndexesMigration(),
+                new IconFilesMigration(iconStore),
+                new ConfigurationDefaultMigration(4, ConfigurationKey.SYNC_BATCH_SIZE, "50"),
+                new ConfigurationDefaultMigration(5, ConfigurationKey.GZIP_REQUESTS, "false"),
+                new ConfigurationDefaultMigration(6, ConfigurationKey.CONFIGURATION_ETAG, ""),
+                new EpochMillisMigration(new KioskDate()),
+                new CentimesMigration(),
+                new PromotionWindowIndexesMigration()
         );
+    }
 
-        String insertConfig = String.format(
-                "INSERT INTO %s(%s, %s) VALUES (?, ?)",
-                ConfigurationTable.TABLE_NAME,
-                ConfigurationTable.KEY,
-                ConfigurationTable.VALUE
-        );
+    @Override public void onConfigure(SQLiteDatabase db) {
+        if (settings.isWriteAheadLogging()) {
+            db.enableWriteAheadLogging();
+        }
+        db.execSQL(String.format("PRAGMA synchronous=%s", settings.getSynchronous().name()));
+        db.execSQL(String.format("PRAGMA cache_size=-%d", settings.getCacheSizeKb()));
+    }
 
-        db.execSQL(createDeliveryAgents);
-        db.execSQL(createMeasurements);
-        db.execSQL(createMeasurementLineItems);
-        db.execSQL(createSamplingSites);
-        db.execSQL(createParameters);
-        db.execSQL(createSamplingSiteParameters);
-        db.execSQL(createReceipts);
-        db.execSQL(createReceiptLineItems);
-        db.execSQL(createProducts);
-        db.execSQL(createConfiguration);
-        db.execSQL(createDeliveries);
-        db.execSQL(createPromotions);
-        db.execSQL(insertConfig, new Object[]{ConfigurationKey.KIOSK_ID.name(), "kiosk01"});
-        db.execSQL(insertConfig, new Object[]{ConfigurationKey.KIOSK_PASSWORD.name(), "pw"});
-        db.execSQL(insertConfig, new Object[]{ConfigurationKey.DELIVERY_TRACKING_MIN.name(), "0"});
-        db.execSQL(insertConfig, new Object[]{ConfigurationKey.DELIVERY_TRACKING_MAX.name(), "24"});
-        db.execSQL(insertConfig, new Object[]{ConfigurationKey.DELIVERY_TRACKING_DEFAULT.name(), "24"});
-        db.execSQL(insertConfig, new Object[]{ConfigurationKey.SERVER_URL.name(), "http://10.0.2.2:8080/dloserver"});
-        db.execSQL(insertConfig, new Object[]{ConfigurationKey.LAST_UPDATE.name(), "20130615"});
+    @Override public void onCreate(SQLiteDatabase db) {
+        migrate(db, 0, DATABASE_VERSION);
     }
 
     @Override public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        //TODO
+        migrate(db, oldVersion, newVersion);
+    }
+
+    /**
+     * Runs the work in one transaction, so everything it writes is committed with a single journal sync.
+     * Repository calls made inside it join the transaction rather than committing on their own. Database
+     * errors roll back and return false; any other exception rolls back and is rethrown to the caller.
+     */
+    public boolean inTransaction(UnitOfWork work) {
+        SQLiteDatabase wdb = getWritableDatabase();
+        Transaction transaction = new Transaction(wdb);
+        wdb.beginTransaction();
+        try {
+            if (!work.perform(transaction)) {
+                return false;
+            }
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (SQLException e) {
+            Log.e(TAG, "Unit of work failed; rolling back.", e);
+            return false;
+        } finally {
+            transaction.close();
+            wdb.endTransaction();
+        }
+    }
+
+    private void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        for (Migration migration : migrations) {
+            if (migration.getVersion() > fromVersion && migration.getVersion() <= toVersion) {
+                Log.i(TAG, String.format("Migrating database to version %d", migration.getVersion()));
+                migration.apply(db);
+            }
+        }
     }
 
     public static class ReceiptLineItemsTable {
@@ -232,6 +100,7 @@ public class KioskDatabase extends SQLiteOpenHelper {
         public static final String SKU = "SKU";
         public static final String TYPE = "TYPE";
         public static final String PRICE = "PRICE";
+        public static final String PRICE_CENTIMES = "PRICE_CENTIMES";
     }
 
     public static class ProductsTable {
@@ -239,7 +108,9 @@ public class KioskDatabase extends SQLiteOpenHelper {
         public static final String ID = "ID";
         public static final String SKU = "SKU";
         public static final String ICON = "ICON";
+        public static final String ICON_KEY = "ICON_KEY";
         public static final String PRICE = "PRICE";
+        public static final String PRICE_CENTIMES = "PRICE_CENTIMES";
         public static final String CURRENCY = "CURRENCY";
         public static final String REQUIRES_QUANTITY = "REQUIRES_QUANTITY";
         public static final String MINIMUM_QUANTITY = "MINIMUM_QUANTITY";
@@ -252,8 +123,10 @@ public class KioskDatabase extends SQLiteOpenHelper {
         public static final String TABLE_NAME = "RECEIPTS";
         public static final String ID = "ID";
         public static final String CREATED_AT = "CREATED_DATE";
+        public static final String CREATED_MILLIS = "CREATED_MILLIS";
         public static final String TOTAL_GALLONS = "TOTAL_GALLONS";
         public static final String TOTAL = "TOTAL";
+        public static final String TOTAL_CENTIMES = "TOTAL_CENTIMES";
     }
 
     public static class ConfigurationTable {
@@ -268,6 +141,7 @@ public class KioskDatabase extends SQLiteOpenHelper {
         public static final String QUANTITY = "QUANTITY";
         public static final String DELIVERY_TYPE = "DELIVERY_TYPE";
         public static final String CREATED_DATE = "CREATED_DATE";
+        public static final String CREATED_MILLIS = "CREATED_MILLIS";
         public static final String AGENT_NAME = "AGENT_NAME";
     }
 
@@ -278,9 +152,12 @@ public class KioskDatabase extends SQLiteOpenHelper {
         public static final String PRODUCT_SKU = "PRODUCT_SKU";
         public static final String START_DATE = "START_DATE";
         public static final String END_DATE = "END_DATE";
+        public static final String START_MILLIS = "START_MILLIS";
+        public static final String END_MILLIS = "END_MILLIS";
         public static final String AMOUNT = "AMOUNT";
         public static final String TYPE = "TYPE";
         public static final String ICON = "ICON";
+        public static final String ICON_KEY = "ICON_KEY";
         public static final String SKU = "SKU";
     }
 
@@ -313,6 +190,7 @@ public class KioskDatabase extends SQLiteOpenHelper {
         public static final String ID = "ID";
         public static final String SAMPLING_SITE_NAME = "SAMPLING_SITE_NAME";
         public static final String CREATED_DATE = "CREATED_DATE";
+        public static final String CREATED_MILLIS = "CREATED_MILLIS";
     }
 
     public static class MeasurementsTable {
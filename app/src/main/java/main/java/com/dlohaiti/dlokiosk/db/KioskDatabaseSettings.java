@@ -0,0 +1,33 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+public class KioskDatabaseSettings {
+    public enum Synchronous {
+        OFF, NORMAL, FULL
+    }
+
+    private final boolean writeAheadLogging;
+    private final Synchronous synchronous;
+    private final int cacheSizeKb;
+
+    public KioskDatabaseSettings() {
+        this(true, Synchronous.NORMAL, 2048);
+    }
+
+    public KioskDatabaseSettings(boolean writeAheadLogging, Synchronous synchronous, int cacheSizeKb) {
+        this.writeAheadLogging = writeAheadLogging;
+        this.synchronous = synchronous;
+        this.cacheSizeKb = cacheSizeKb;
+    }
+
+    public boolean isWriteAheadLogging() {
+        return writeAheadLogging;
+    }
+
+    public Synchronous getSynchronous() {
+        return synchronous;
+    }
+
+    public int getCacheSizeKb() {
+        return cacheSizeKb;
+    }
+}
@@ -1,5 +1,14 @@
 package main.java.com.dlohaiti.dlokiosk.db;
 
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Date;
+
+import static android.database.DatabaseUtils.longForQuery;
+
 public class KioskDatabaseUtils {
     private KioskDatabaseUtils() {}
 
@@ -15,6 +24,59 @@ public class KioskDatabaseUtils {
         return new String[] {match};
     }
 
+    static String insertInto(String tableName, String... columnNames) {
+        return String.format("INSERT INTO %s (%s) VALUES (%s)", tableName,
+                StringUtils.join(columnNames, ","), StringUtils.repeat("?", ",", columnNames.length));
+    }
+
+    static void bind(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    static void bind(SQLiteStatement statement, int index, Integer value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value);
+        }
+    }
+
+    static String whereIn(String columnName, int numberOfItems) {
+        return String.format("%s IN (%s)", columnName, StringUtils.repeat("?", ",", numberOfItems));
+    }
+
+    static void bind(SQLiteStatement statement, int index, Date value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value.getTime());
+        }
+    }
+
+    static Long millis(Date date) {
+        return date == null ? null : date.getTime();
+    }
+
+    static Date dateAt(Cursor cursor, int columnIndex) {
+        return cursor.isNull(columnIndex) ? null : new Date(cursor.getLong(columnIndex));
+    }
+
+    static String existsIn(String tableName) {
+        return String.format("EXISTS (SELECT 1 FROM %s)", tableName);
+    }
+
+    static boolean exists(SQLiteDatabase rdb, String tableName) {
+        return longForQuery(rdb, "SELECT " + existsIn(tableName), null) == 1;
+    }
+
+    static void createIndex(SQLiteDatabase db, String tableName, String columnName) {
+        db.execSQL(String.format("CREATE INDEX IF NOT EXISTS IDX_%s_%s ON %s(%s)", tableName, columnName, tableName, columnName));
+    }
+
     static String where(String columnName) {
         return String.format("%s=?", columnName);
     }
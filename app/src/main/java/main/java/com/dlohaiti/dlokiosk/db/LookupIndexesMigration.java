@@ -0,0 +1,25 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ConfigurationTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.MeasurementsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.ReceiptLineItemsTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.SamplingSitesParametersTable;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.SamplingSitesTable;
+
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.createIndex;
+
+public class LookupIndexesMigration implements Migration {
+    @Override public int getVersion() {
+        return 2;
+    }
+
+    @Override public void apply(SQLiteDatabase db) {
+        createIndex(db, ReceiptLineItemsTable.TABLE_NAME, ReceiptLineItemsTable.RECEIPT_ID);
+        createIndex(db, MeasurementsTable.TABLE_NAME, MeasurementsTable.READING_ID);
+        createIndex(db, SamplingSitesTable.TABLE_NAME, SamplingSitesTable.NAME);
+        createIndex(db, SamplingSitesParametersTable.TABLE_NAME, SamplingSitesParametersTable.SITE_ID);
+        createIndex(db, ConfigurationTable.TABLE_NAME, ConfigurationTable.KEY);
+    }
+}
@@ -0,0 +1,9 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+public interface Migration {
+    int getVersion();
+
+    void apply(SQLiteDatabase db);
+}
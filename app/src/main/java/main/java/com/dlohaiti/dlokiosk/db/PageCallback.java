@@ -0,0 +1,7 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import java.util.List;
+
+public interface PageCallback<T> {
+    void onPage(List<T> page);
+}
@@ -4,17 +4,18 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.graphics.Bitmap;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
-import main.java.com.dlohaiti.dlokiosk.Base64ImageConverter;
 import main.java.com.dlohaiti.dlokiosk.domain.Money;
 import main.java.com.dlohaiti.dlokiosk.domain.Product;
 import com.google.inject.Inject;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.bind;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
 
@@ -22,31 +23,78 @@ public class ProductRepository {
     private final static String TAG = ProductRepository.class.getSimpleName();
     private final KioskDatabase db;
     private final Context context;
-    private final Base64ImageConverter imageConverter;
     private final static String[] columns = new String[]{
             KioskDatabase.ProductsTable.ID,
             KioskDatabase.ProductsTable.SKU,
-            KioskDatabase.ProductsTable.ICON,
+            KioskDatabase.ProductsTable.ICON_KEY,
             KioskDatabase.ProductsTable.REQUIRES_QUANTITY,
             KioskDatabase.ProductsTable.MINIMUM_QUANTITY,
             KioskDatabase.ProductsTable.MAXIMUM_QUANTITY,
-            KioskDatabase.ProductsTable.PRICE,
+            KioskDatabase.ProductsTable.PRICE_CENTIMES,
             KioskDatabase.ProductsTable.CURRENCY,
             KioskDatabase.ProductsTable.DESCRIPTION,
             KioskDatabase.ProductsTable.GALLONS
     };
+    private final static BulkWriter<Product> writer = new BulkWriter<Product>(KioskDatabase.ProductsTable.TABLE_NAME,
+            new String[]{
+                    KioskDatabase.ProductsTable.SKU,
+                    KioskDatabase.ProductsTable.PRICE_CENTIMES,
+                    KioskDatabase.ProductsTable.DESCRIPTION,
+                    KioskDatabase.ProductsTable.GALLONS,
+                    KioskDatabase.ProductsTable.ICON_KEY,
+                    KioskDatabase.ProductsTable.MINIMUM_QUANTITY,
+                    KioskDatabase.ProductsTable.MAXIMUM_QUANTITY,
+                    KioskDatabase.ProductsTable.REQUIRES_QUANTITY,
+                    KioskDatabase.ProductsTable.CURRENCY
+            },
+            new BulkWriter.Binder<Product>() {
+                @Override public void bindValues(SQLiteStatement insert, Product p) {
+                    bind(insert, 1, p.getSku());
+                    insert.bindLong(2, p.getPrice().getCentimes());
+                    bind(insert, 3, p.getDescription());
+                    bind(insert, 4, p.getGallons());
+                    bind(insert, 5, p.getIconKey());
+                    bind(insert, 6, p.getMinimumQuantity());
+                    bind(insert, 7, p.getMaximumQuantity());
+                    bind(insert, 8, String.valueOf(p.requiresQuantity()));
+                    bind(insert, 9, p.getPrice().getCurrencyCode());
+                }
+            });
 
     @Inject
-    public ProductRepository(Context context, KioskDatabase db, Base64ImageConverter imageConverter) {
+    public ProductRepository(Context context, KioskDatabase db) {
         this.context = context;
         this.db = db;
-        this.imageConverter = imageConverter;
+    }
+
+    /**
+     * Returns the icon keys the products refer to. Throws a {@link DatabaseException} when they cannot be
+     * read, so a failed read is never mistaken for products without icons.
+     */
+    public Set<String> findIconKeys() {
+        Set<String> iconKeys = new HashSet<String>();
+        Cursor cursor = null;
+        try {
+            cursor = db.getReadableDatabase().query(true, KioskDatabase.ProductsTable.TABLE_NAME, new String[]{KioskDatabase.ProductsTable.ICON_KEY},
+                    KioskDatabase.ProductsTable.ICON_KEY + " IS NOT NULL", null, null, null, null, null);
+            while (cursor.moveToNext()) {
+                iconKeys.add(cursor.getString(0));
+            }
+            return iconKeys;
+        } catch (Exception e) {
+            String message = "Failed to load product icon keys from the database.";
+            Log.e(TAG, message, e);
+            throw new DatabaseException(message, e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
     }
 
     public List<Product> list() {
         List<Product> products = new ArrayList<Product>();
         SQLiteDatabase readableDatabase = db.getReadableDatabase();
-        readableDatabase.beginTransaction();
         Cursor cursor = readableDatabase.query(KioskDatabase.ProductsTable.TABLE_NAME, columns, null, null, null, null, null);
         try {
             cursor.moveToFirst();
@@ -54,14 +102,12 @@ public class ProductRepository {
                 products.add(buildProduct(cursor));
                 cursor.moveToNext();
             }
-            readableDatabase.setTransactionSuccessful();
             return products;
         } catch(Exception e) {
             Log.e(TAG, "Failed to load all products from the database.", e);
             return new ArrayList<Product>();
         } finally {
             cursor.close();
-            readableDatabase.endTransaction();
         }
     }
 
@@ -70,17 +116,16 @@ public class ProductRepository {
         boolean requiresQuantity = Boolean.parseBoolean(cursor.getString(3));
         Integer minimum = cursor.getInt(4);
         Integer maximum = cursor.getInt(5);
-        Money price = new Money(new BigDecimal(cursor.getDouble(6)));
+        Money price = Money.centimes(cursor.getLong(6));
         String description = cursor.getString(8);
         Integer gallons = cursor.getInt(9);
-        Bitmap resource = imageConverter.fromBase64EncodedString(cursor.getString(2));
+        String iconKey = cursor.getString(2);
         long id = cursor.getLong(0);
-        return new Product(id, sku, resource, requiresQuantity, 1, minimum, maximum, price, description, gallons);
+        return new Product(id, sku, iconKey, requiresQuantity, 1, minimum, maximum, price, description, gallons);
     }
 
     public Product findById(Long id) {
         SQLiteDatabase readableDatabase = db.getReadableDatabase();
-        readableDatabase.beginTransaction();
         Cursor cursor = readableDatabase.query(KioskDatabase.ProductsTable.TABLE_NAME, columns, where(KioskDatabase.ProductsTable.ID), matches(id), null, null, null);
         try {
             if (cursor.getCount() != 1) {
@@ -88,42 +133,104 @@ public class ProductRepository {
             }
             cursor.moveToFirst();
             Product product = buildProduct(cursor);
-            readableDatabase.setTransactionSuccessful();
             return product;
         } catch(Exception e) {
             Log.e(TAG, String.format("Failed to find product with id %d in the database.", id), e);
             return new Product(null, null, null, false, null, null, null, null, null, null);
         } finally {
             cursor.close();
-            readableDatabase.endTransaction();
         }
     }
 
-    public boolean replaceAll(List<Product> products) {
+    public boolean replaceAll(final List<Product> products) {
+        boolean replaced = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                transaction.getDatabase().delete(KioskDatabase.ProductsTable.TABLE_NAME, null, null);
+                return writer.insertAll(transaction, products);
+            }
+        });
+        if (!replaced) {
+            Log.e(TAG, "Failed to replace all products.");
+        }
+        return replaced;
+    }
+
+    public boolean deleteAll() {
         SQLiteDatabase wdb = db.getWritableDatabase();
         wdb.beginTransaction();
         try {
             wdb.delete(KioskDatabase.ProductsTable.TABLE_NAME, null, null);
-            for(Product p : products) {
-                ContentValues values = new ContentValues();
-                values.put(KioskDatabase.ProductsTable.SKU, p.getSku());
-                values.put(KioskDatabase.ProductsTable.PRICE, p.getPrice().getAmount().toString());
-                values.put(KioskDatabase.ProductsTable.DESCRIPTION, p.getDescription());
-                values.put(KioskDatabase.ProductsTable.GALLONS, p.getGallons());
-                values.put(KioskDatabase.ProductsTable.ICON, imageConverter.toBase64EncodedString(p.getImageResource()));
-                values.put(KioskDatabase.ProductsTable.MINIMUM_QUANTITY, p.getMinimumQuantity());
-                values.put(KioskDatabase.ProductsTable.MAXIMUM_QUANTITY, p.getMaximumQuantity());
-                values.put(KioskDatabase.ProductsTable.REQUIRES_QUANTITY, String.valueOf(p.requiresQuantity()));
-                values.put(KioskDatabase.ProductsTable.CURRENCY, p.getPrice().getCurrencyCode());
-                wdb.insert(KioskDatabase.ProductsTable.TABLE_NAME, null, values);
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to delete all products.", e);
+            return false;
+        } finally {
+            wdb.endTransaction();
+        }
+    }
+
+    public boolean add(final Product product) {
+        boolean added = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return add(transaction, product);
+            }
+        });
+        if (!added) {
+            Log.e(TAG, String.format("Failed to add product %s.", product.getSku()));
+        }
+        return added;
+    }
+
+    public boolean add(Transaction transaction, Product product) {
+        return writer.insert(transaction, product) != -1;
+    }
+
+    public boolean save(Product product) {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.beginTransaction();
+        try {
+            ContentValues values = valuesOf(product);
+            int updated = wdb.update(KioskDatabase.ProductsTable.TABLE_NAME, values, where(KioskDatabase.ProductsTable.SKU), matches(product.getSku()));
+            if (updated == 0 && wdb.insert(KioskDatabase.ProductsTable.TABLE_NAME, null, values) == -1) {
+                return false;
             }
             wdb.setTransactionSuccessful();
             return true;
         } catch (Exception e) {
-            Log.e(TAG, "Failed to replace all products.", e);
+            Log.e(TAG, String.format("Failed to save product %s.", product.getSku()), e);
+            return false;
+        } finally {
+            wdb.endTransaction();
+        }
+    }
+
+    public boolean remove(String sku) {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.beginTransaction();
+        try {
+            wdb.delete(KioskDatabase.ProductsTable.TABLE_NAME, where(KioskDatabase.ProductsTable.SKU), matches(sku));
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, String.format("Failed to remove product %s.", sku), e);
             return false;
         } finally {
             wdb.endTransaction();
         }
     }
+
+    private ContentValues valuesOf(Product p) {
+        ContentValues values = new ContentValues();
+        values.put(KioskDatabase.ProductsTable.SKU, p.getSku());
+        values.put(KioskDatabase.ProductsTable.PRICE_CENTIMES, p.getPrice().getCentimes());
+        values.put(KioskDatabase.ProductsTable.DESCRIPTION, p.getDescription());
+        values.put(KioskDatabase.ProductsTable.GALLONS, p.getGallons());
+        values.put(KioskDatabase.ProductsTable.ICON_KEY, p.getIconKey());
+        values.put(KioskDatabase.ProductsTable.MINIMUM_QUANTITY, p.getMinimumQuantity());
+        values.put(KioskDatabase.ProductsTable.MAXIMUM_QUANTITY, p.getMaximumQuantity());
+        values.put(KioskDatabase.ProductsTable.REQUIRES_QUANTITY, String.valueOf(p.requiresQuantity()));
+        values.put(KioskDatabase.ProductsTable.CURRENCY, p.getPrice().getCurrencyCode());
+        return values;
+    }
 }
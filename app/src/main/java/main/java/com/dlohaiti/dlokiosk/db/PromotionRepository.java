@@ -4,54 +4,101 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.graphics.Bitmap;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
-import main.java.com.dlohaiti.dlokiosk.Base64ImageConverter;
-import main.java.com.dlohaiti.dlokiosk.KioskDate;
 import main.java.com.dlohaiti.dlokiosk.domain.Promotion;
 import main.java.com.dlohaiti.dlokiosk.domain.PromotionApplicationType;
 import main.java.com.dlohaiti.dlokiosk.domain.PromotionType;
 import com.google.inject.Inject;
 
-import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.bind;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.dateAt;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.millis;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.whereIn;
 
 public class PromotionRepository {
     private final static String TAG = PromotionRepository.class.getSimpleName();
     private final Context context;
     private final KioskDatabase db;
-    private final KioskDate kioskDate;
-    private final Base64ImageConverter imageConverter;
     private final static String[] columns = {
             KioskDatabase.PromotionsTable.ID,
             KioskDatabase.PromotionsTable.APPLIES_TO,
             KioskDatabase.PromotionsTable.PRODUCT_SKU,
             KioskDatabase.PromotionsTable.AMOUNT,
             KioskDatabase.PromotionsTable.TYPE,
-            KioskDatabase.PromotionsTable.START_DATE,
-            KioskDatabase.PromotionsTable.END_DATE,
-            KioskDatabase.PromotionsTable.ICON,
+            KioskDatabase.PromotionsTable.START_MILLIS,
+            KioskDatabase.PromotionsTable.END_MILLIS,
+            KioskDatabase.PromotionsTable.ICON_KEY,
             KioskDatabase.PromotionsTable.SKU
     };
+    private final static BulkWriter<Promotion> writer = new BulkWriter<Promotion>(KioskDatabase.PromotionsTable.TABLE_NAME,
+            new String[]{
+                    KioskDatabase.PromotionsTable.SKU,
+                    KioskDatabase.PromotionsTable.AMOUNT,
+                    KioskDatabase.PromotionsTable.APPLIES_TO,
+                    KioskDatabase.PromotionsTable.PRODUCT_SKU,
+                    KioskDatabase.PromotionsTable.START_MILLIS,
+                    KioskDatabase.PromotionsTable.END_MILLIS,
+                    KioskDatabase.PromotionsTable.TYPE,
+                    KioskDatabase.PromotionsTable.ICON_KEY
+            },
+            new BulkWriter.Binder<Promotion>() {
+                @Override public void bindValues(SQLiteStatement insert, Promotion p) {
+                    bind(insert, 1, p.getSku());
+                    bind(insert, 2, p.getRawAmount().toString());
+                    bind(insert, 3, p.getAppliesTo().name());
+                    bind(insert, 4, p.getProductSku());
+                    bind(insert, 5, p.getStartDate());
+                    bind(insert, 6, p.getEndDate());
+                    bind(insert, 7, p.getType().name());
+                    bind(insert, 8, p.getIconKey());
+                }
+            });
 
     @Inject
-    public PromotionRepository(Context context, KioskDatabase db, KioskDate kioskDate, Base64ImageConverter imageConverter) {
+    public PromotionRepository(Context context, KioskDatabase db) {
         this.context = context;
         this.db = db;
-        this.kioskDate = kioskDate;
-        this.imageConverter = imageConverter;
+    }
+
+    /**
+     * Returns the icon keys the promotions refer to. Throws a {@link DatabaseException} when they cannot be
+     * read, so a failed read is never mistaken for promotions without icons.
+     */
+    public Set<String> findIconKeys() {
+        Set<String> iconKeys = new HashSet<String>();
+        Cursor cursor = null;
+        try {
+            cursor = db.getReadableDatabase().query(true, KioskDatabase.PromotionsTable.TABLE_NAME, new String[]{KioskDatabase.PromotionsTable.ICON_KEY},
+                    KioskDatabase.PromotionsTable.ICON_KEY + " IS NOT NULL", null, null, null, null, null);
+            while (cursor.moveToNext()) {
+                iconKeys.add(cursor.getString(0));
+            }
+            return iconKeys;
+        } catch (Exception e) {
+            String message = "Failed to load promotion icon keys from the database.";
+            Log.e(TAG, message, e);
+            throw new DatabaseException(message, e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
     }
 
     public List<Promotion> list() {
         List<Promotion> promos = new ArrayList<Promotion>();
 
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
         try {
             Cursor c = rdb.query(KioskDatabase.PromotionsTable.TABLE_NAME, columns, null, null, null, null, null);
             c.moveToFirst();
@@ -60,72 +107,162 @@ public class PromotionRepository {
                 c.moveToNext();
             }
             c.close();
-            rdb.setTransactionSuccessful();
             return promos;
         } catch (Exception e) {
             Log.e(TAG, "Failed to load promotions from the database.", e);
             return new ArrayList<Promotion>();
-        } finally {
-            rdb.endTransaction();
+        }
+    }
+
+    public List<Promotion> findEligible(Date now, Collection<String> productSkus) {
+        String selection = String.format("%s <= ? AND %s >= ? AND (%s = ?",
+                KioskDatabase.PromotionsTable.START_MILLIS,
+                KioskDatabase.PromotionsTable.END_MILLIS,
+                KioskDatabase.PromotionsTable.APPLIES_TO);
+        List<String> args = new ArrayList<String>(productSkus.size() + 3);
+        args.add(String.valueOf(now.getTime()));
+        args.add(String.valueOf(now.getTime()));
+        args.add(PromotionApplicationType.BASKET.name());
+        if (!productSkus.isEmpty()) {
+            selection += " OR " + whereIn(KioskDatabase.PromotionsTable.PRODUCT_SKU, productSkus.size());
+            args.addAll(productSkus);
+        }
+        selection += ")";
+
+        List<Promotion> promos = new ArrayList<Promotion>();
+        SQLiteDatabase rdb = db.getReadableDatabase();
+        try {
+            Cursor c = rdb.query(KioskDatabase.PromotionsTable.TABLE_NAME, columns, selection, args.toArray(new String[args.size()]), null, null, null);
+            try {
+                while (c.moveToNext()) {
+                    promos.add(buildPromotion(c));
+                }
+            } finally {
+                c.close();
+            }
+            return promos;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to load eligible promotions from the database.", e);
+            return new ArrayList<Promotion>();
         }
     }
 
     public Promotion findById(long id) {
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
         try {
             Cursor c = rdb.query(KioskDatabase.PromotionsTable.TABLE_NAME, columns, where(KioskDatabase.PromotionsTable.ID), matches(id), null, null, null);
             c.moveToFirst();
             //TODO: more than one result? throw exception?
             Promotion promotion = buildPromotion(c);
             c.close();
-            rdb.setTransactionSuccessful();
             return promotion;
         } catch (Exception e) {
             Log.e(TAG, String.format("Failed to find promotion with id %d in the database.", id), e);
             return new Promotion(null, null, null, null, null, null, null, null, null);
-        } finally {
-            rdb.endTransaction();
         }
     }
 
-    private Promotion buildPromotion(Cursor c) throws ParseException {
+    private Promotion buildPromotion(Cursor c) {
         long id = c.getLong(0);
         PromotionApplicationType appliesTo = PromotionApplicationType.valueOf(c.getString(1));
         String productSku = c.getString(2);
-        Date startDate = kioskDate.getFormat().parse(c.getString(5));
-        Date endDate = kioskDate.getFormat().parse(c.getString(6));
+        Date startDate = dateAt(c, 5);
+        Date endDate = dateAt(c, 6);
         String amount = c.getString(3);
         PromotionType type = PromotionType.valueOf(c.getString(4));
         String sku = c.getString(8);
-        Bitmap resource = imageConverter.fromBase64EncodedString(c.getString(7));
-        return new Promotion(id, sku, appliesTo, productSku, startDate, endDate, amount, type, resource);
+        String iconKey = c.getString(7);
+        return new Promotion(id, sku, appliesTo, productSku, startDate, endDate, amount, type, iconKey);
     }
 
-    public boolean replaceAll(List<Promotion> promotions) {
+    public boolean replaceAll(final List<Promotion> promotions) {
+        boolean replaced = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                transaction.getDatabase().delete(KioskDatabase.PromotionsTable.TABLE_NAME, null, null);
+                return writer.insertAll(transaction, promotions);
+            }
+        });
+        if (!replaced) {
+            Log.e(TAG, "Failed to replace all promotions");
+        }
+        return replaced;
+    }
+
+    public boolean deleteAll() {
         SQLiteDatabase wdb = db.getWritableDatabase();
         wdb.beginTransaction();
         try {
             wdb.delete(KioskDatabase.PromotionsTable.TABLE_NAME, null, null);
-            for(Promotion p : promotions) {
-                ContentValues values = new ContentValues();
-                values.put(KioskDatabase.PromotionsTable.SKU, p.getSku());
-                values.put(KioskDatabase.PromotionsTable.AMOUNT, p.getRawAmount().toString());
-                values.put(KioskDatabase.PromotionsTable.APPLIES_TO, p.getAppliesTo().name());
-                values.put(KioskDatabase.PromotionsTable.PRODUCT_SKU, p.getProductSku());
-                values.put(KioskDatabase.PromotionsTable.START_DATE, kioskDate.getFormat().format(p.getStartDate()));
-                values.put(KioskDatabase.PromotionsTable.END_DATE, kioskDate.getFormat().format(p.getEndDate()));
-                values.put(KioskDatabase.PromotionsTable.TYPE, p.getType().name());
-                values.put(KioskDatabase.PromotionsTable.ICON, imageConverter.toBase64EncodedString(p.getImageResource()));
-                wdb.insert(KioskDatabase.PromotionsTable.TABLE_NAME, null, values);
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to delete all promotions.", e);
+            return false;
+        } finally {
+            wdb.endTransaction();
+        }
+    }
+
+    public boolean add(final Promotion promotion) {
+        boolean added = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return add(transaction, promotion);
+            }
+        });
+        if (!added) {
+            Log.e(TAG, String.format("Failed to add promotion %s.", promotion.getSku()));
+        }
+        return added;
+    }
+
+    public boolean add(Transaction transaction, Promotion promotion) {
+        return writer.insert(transaction, promotion) != -1;
+    }
+
+    public boolean save(Promotion promotion) {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.beginTransaction();
+        try {
+            ContentValues values = valuesOf(promotion);
+            int updated = wdb.update(KioskDatabase.PromotionsTable.TABLE_NAME, values, where(KioskDatabase.PromotionsTable.SKU), matches(promotion.getSku()));
+            if (updated == 0 && wdb.insert(KioskDatabase.PromotionsTable.TABLE_NAME, null, values) == -1) {
+                return false;
             }
             wdb.setTransactionSuccessful();
             return true;
         } catch (Exception e) {
-            Log.e(TAG, "Failed to replace all promotions", e);
+            Log.e(TAG, String.format("Failed to save promotion %s.", promotion.getSku()), e);
             return false;
         } finally {
             wdb.endTransaction();
         }
     }
+
+    public boolean remove(String sku) {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.beginTransaction();
+        try {
+            wdb.delete(KioskDatabase.PromotionsTable.TABLE_NAME, where(KioskDatabase.PromotionsTable.SKU), matches(sku));
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, String.format("Failed to remove promotion %s.", sku), e);
+            return false;
+        } finally {
+            wdb.endTransaction();
+        }
+    }
+
+    private ContentValues valuesOf(Promotion p) {
+        ContentValues values = new ContentValues();
+        values.put(KioskDatabase.PromotionsTable.SKU, p.getSku());
+        values.put(KioskDatabase.PromotionsTable.AMOUNT, p.getRawAmount().toString());
+        values.put(KioskDatabase.PromotionsTable.APPLIES_TO, p.getAppliesTo().name());
+        values.put(KioskDatabase.PromotionsTable.PRODUCT_SKU, p.getProductSku());
+        values.put(KioskDatabase.PromotionsTable.START_MILLIS, millis(p.getStartDate()));
+        values.put(KioskDatabase.PromotionsTable.END_MILLIS, millis(p.getEndDate()));
+        values.put(KioskDatabase.PromotionsTable.TYPE, p.getType().name());
+        values.put(KioskDatabase.PromotionsTable.ICON_KEY, p.getIconKey());
+        return values;
+    }
 }
@@ -0,0 +1,19 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase.PromotionsTable;
+
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.createIndex;
+
+public class PromotionWindowIndexesMigration implements Migration {
+    @Override public int getVersion() {
+        return 9;
+    }
+
+    @Override public void apply(SQLiteDatabase db) {
+        createIndex(db, PromotionsTable.TABLE_NAME, PromotionsTable.PRODUCT_SKU);
+        createIndex(db, PromotionsTable.TABLE_NAME, PromotionsTable.START_MILLIS);
+        createIndex(db, PromotionsTable.TABLE_NAME, PromotionsTable.END_MILLIS);
+    }
+}
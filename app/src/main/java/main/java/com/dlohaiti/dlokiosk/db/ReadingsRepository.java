@@ -16,20 +16,22 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static android.database.DatabaseUtils.queryNumEntries;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.dateAt;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.exists;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.millis;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
 
 public class ReadingsRepository {
     private final static String TAG = ReadingsRepository.class.getSimpleName();
-    private final static String[] READINGS_COLUMNS = new String[] {
+    private final static String ALL_READINGS_QUERY = readingsWithMeasurements(KioskDatabase.ReadingsTable.TABLE_NAME);
+    private final static String READINGS_PAGE_QUERY = readingsWithMeasurements(String.format(
+            "(SELECT * FROM %s WHERE %s > ? ORDER BY %s LIMIT ?)",
+            KioskDatabase.ReadingsTable.TABLE_NAME,
             KioskDatabase.ReadingsTable.ID,
-            KioskDatabase.ReadingsTable.SAMPLING_SITE_NAME,
-            KioskDatabase.ReadingsTable.CREATED_DATE
-    };
-    private final static String[] MEASUREMENTS_COLUMNS = new String[] {
-            KioskDatabase.MeasurementsTable.PARAMETER_NAME,
-            KioskDatabase.MeasurementsTable.VALUE
-    };
+            KioskDatabase.ReadingsTable.ID
+    ));
     private final KioskDatabase db;
     private final KioskDate kioskDate;
     private final Clock clock;
@@ -41,11 +43,30 @@ public class ReadingsRepository {
         this.clock = clock;
     }
 
+    private static String readingsWithMeasurements(String readingsSource) {
+        return String.format(
+                "SELECT r.%s, r.%s, r.%s, m.%s, m.%s " +
+                        "FROM %s r LEFT JOIN %s m ON m.%s = r.%s " +
+                        "ORDER BY r.%s, m.%s",
+                KioskDatabase.ReadingsTable.ID,
+                KioskDatabase.ReadingsTable.SAMPLING_SITE_NAME,
+                KioskDatabase.ReadingsTable.CREATED_MILLIS,
+                KioskDatabase.MeasurementsTable.PARAMETER_NAME,
+                KioskDatabase.MeasurementsTable.VALUE,
+                readingsSource,
+                KioskDatabase.MeasurementsTable.TABLE_NAME,
+                KioskDatabase.MeasurementsTable.READING_ID,
+                KioskDatabase.ReadingsTable.ID,
+                KioskDatabase.ReadingsTable.ID,
+                KioskDatabase.MeasurementsTable.ID
+        );
+    }
+
     public boolean save(Reading reading) {
         SQLiteDatabase wdb = db.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(KioskDatabase.ReadingsTable.SAMPLING_SITE_NAME, reading.getSamplingSiteName());
-        values.put(KioskDatabase.ReadingsTable.CREATED_DATE, kioskDate.getFormat().format(clock.now()));
+        values.put(KioskDatabase.ReadingsTable.CREATED_MILLIS, millis(clock.now()));
         wdb.beginTransaction();
         try {
             long readingId = wdb.insert(KioskDatabase.ReadingsTable.TABLE_NAME, null, values);
@@ -67,56 +88,109 @@ public class ReadingsRepository {
     }
 
     public List<Reading> list() {
-        List<Reading> readings = new ArrayList<Reading>();
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
         try {
-            Cursor rc = rdb.query(KioskDatabase.ReadingsTable.TABLE_NAME, READINGS_COLUMNS, null, null, null, null, null);
-            Log.i(TAG, "Found readings: " + rc.getCount());
-            if(rc.moveToFirst()) {
-                while(!rc.isAfterLast()) {
-                    long readingId = rc.getLong(0);
-                    Set<Measurement> measurements = new HashSet<Measurement>();
-                    Cursor mc = rdb.query(KioskDatabase.MeasurementsTable.TABLE_NAME, MEASUREMENTS_COLUMNS, where(KioskDatabase.MeasurementsTable.READING_ID), matches(readingId), null, null, null);
-                    if(mc.moveToFirst()) {
-                        while(!mc.isAfterLast()) {
-                            measurements.add(new Measurement(mc.getString(0), new BigDecimal(mc.getString(1))));
-                            mc.moveToNext();
-                        }
-                    }
-                    mc.close();
-                    readings.add(new Reading(readingId, rc.getString(1), measurements, kioskDate.getFormat().parse(rc.getString(2))));
-                    rc.moveToNext();
-                }
-            }
-            rc.close();
-            rdb.setTransactionSuccessful();
+            List<Reading> readings = readReadings(rdb.rawQuery(ALL_READINGS_QUERY, null));
+            Log.i(TAG, "Found readings: " + readings.size());
             return readings;
         } catch (Exception e) {
             Log.e(TAG, "Failed to load readings from database.", e);
             return new ArrayList<Reading>();
+        }
+    }
+
+    /**
+     * Hands the readings to the callback a page at a time. Throws a {@link DatabaseException} when a page
+     * cannot be read, so a failed read is never mistaken for the end of the readings.
+     */
+    public int forEachPage(int pageSize, PageCallback<Reading> callback) {
+        int total = 0;
+        long lastId = 0;
+        List<Reading> page = findPageAfter(lastId, pageSize);
+        while (!page.isEmpty()) {
+            callback.onPage(page);
+            total += page.size();
+            lastId = page.get(page.size() - 1).getId();
+            page = findPageAfter(lastId, pageSize);
+        }
+        return total;
+    }
+
+    private List<Reading> findPageAfter(long lastId, int pageSize) {
+        SQLiteDatabase rdb = db.getReadableDatabase();
+        try {
+            return readReadings(rdb.rawQuery(READINGS_PAGE_QUERY, new String[]{String.valueOf(lastId), String.valueOf(pageSize)}));
+        } catch (Exception e) {
+            String message = String.format("Failed to load readings after id %d from database.", lastId);
+            Log.e(TAG, message, e);
+            throw new DatabaseException(message, e);
+        }
+    }
+
+    private List<Reading> readReadings(Cursor cursor) {
+        List<Reading> readings = new ArrayList<Reading>();
+        try {
+            long currentId = 0;
+            Set<Measurement> measurements = null;
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                if (measurements == null || id != currentId) {
+                    currentId = id;
+                    measurements = new HashSet<Measurement>();
+                    readings.add(new Reading(id, cursor.getString(1), measurements, dateAt(cursor, 2)));
+                }
+                if (!cursor.isNull(3)) {
+                    measurements.add(new Measurement(cursor.getString(3), new BigDecimal(cursor.getString(4))));
+                }
+            }
         } finally {
-            rdb.endTransaction();
+            cursor.close();
         }
+        return readings;
     }
 
     public boolean remove(Reading reading) {
         SQLiteDatabase wdb = db.getWritableDatabase();
         wdb.beginTransaction();
         try {
-            wdb.delete(KioskDatabase.MeasurementsTable.TABLE_NAME, where(KioskDatabase.MeasurementsTable.READING_ID), matches(reading.getId()));
-            wdb.delete(KioskDatabase.ReadingsTable.TABLE_NAME, where(KioskDatabase.ReadingsTable.ID), matches(reading.getId()));
+            delete(wdb, reading);
             wdb.setTransactionSuccessful();
             return true;
         } catch (Exception e) {
-            Log.e(TAG, String.format("Failed to remove reading for Sampling Site %s on %s.", reading.getSamplingSiteName(), kioskDate.getFormat().format(reading.getCreatedDate())), e);
+            Log.e(TAG, String.format("Failed to remove reading for Sampling Site %s on %s.", reading.getSamplingSiteName(), kioskDate.format(reading.getCreatedDate())), e);
             return false;
         } finally {
             wdb.endTransaction();
         }
     }
 
+    public boolean removeAll(List<Reading> readings) {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.beginTransaction();
+        try {
+            for (Reading reading : readings) {
+                delete(wdb, reading);
+            }
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, String.format("Failed to remove %d readings.", readings.size()), e);
+            return false;
+        } finally {
+            wdb.endTransaction();
+        }
+    }
+
+    private void delete(SQLiteDatabase wdb, Reading reading) {
+        wdb.delete(KioskDatabase.MeasurementsTable.TABLE_NAME, where(KioskDatabase.MeasurementsTable.READING_ID), matches(reading.getId()));
+        wdb.delete(KioskDatabase.ReadingsTable.TABLE_NAME, where(KioskDatabase.ReadingsTable.ID), matches(reading.getId()));
+    }
+
+    public int count() {
+        return (int) queryNumEntries(db.getReadableDatabase(), KioskDatabase.ReadingsTable.TABLE_NAME);
+    }
+
     public boolean isNotEmpty() {
-        return list().size() > 0;
+        return exists(db.getReadableDatabase(), KioskDatabase.ReadingsTable.TABLE_NAME);
     }
 }
@@ -4,99 +4,138 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
-import main.java.com.dlohaiti.dlokiosk.KioskDate;
 import main.java.com.dlohaiti.dlokiosk.domain.*;
 import com.google.inject.Inject;
 
-import java.math.BigDecimal;
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import static android.database.DatabaseUtils.queryNumEntries;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.dateAt;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.exists;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.millis;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
 
 public class ReceiptsRepository {
     private final static String TAG = ReceiptsRepository.class.getSimpleName();
     private final KioskDatabase db;
     private final ReceiptFactory receiptFactory;
-    private final KioskDate kioskDate;
-    private final static String[] lineItemCols = new String[]{
-            KioskDatabase.ReceiptLineItemsTable.ID,
-            KioskDatabase.ReceiptLineItemsTable.SKU,
-            KioskDatabase.ReceiptLineItemsTable.QUANTITY,
-            KioskDatabase.ReceiptLineItemsTable.RECEIPT_ID,
-            KioskDatabase.ReceiptLineItemsTable.PRICE,
-            KioskDatabase.ReceiptLineItemsTable.TYPE
-    };
+    private final static String ALL_RECEIPTS_QUERY = receiptsWithLineItems(KioskDatabase.ReceiptsTable.TABLE_NAME);
+    private final static String RECEIPTS_PAGE_QUERY = receiptsWithLineItems(String.format(
+            "(SELECT * FROM %s WHERE %s > ? ORDER BY %s LIMIT ?)",
+            KioskDatabase.ReceiptsTable.TABLE_NAME,
+            KioskDatabase.ReceiptsTable.ID,
+            KioskDatabase.ReceiptsTable.ID
+    ));
 
     @Inject
-    public ReceiptsRepository(KioskDatabase db, ReceiptFactory receiptFactory, KioskDate kioskDate) {
+    public ReceiptsRepository(KioskDatabase db, ReceiptFactory receiptFactory) {
         this.db = db;
         this.receiptFactory = receiptFactory;
-        this.kioskDate = kioskDate;
     }
 
-    public List<Receipt> list() {
-        List<Receipt> receipts = new ArrayList<Receipt>();
-        String[] columns = {
+    /**
+     * Receipts saved before the cart merged repeated products hold one line item per tap, so line items
+     * of the same SKU and type are summed into one here and every receipt reads, and uploads, in the
+     * one-line-per-SKU shape.
+     */
+    private static String receiptsWithLineItems(String receiptsSource) {
+        return String.format(
+                "SELECT r.%1$s, r.%2$s, r.%3$s, r.%4$s, li.%5$s, SUM(li.%6$s), SUM(li.%7$s), li.%8$s " +
+                        "FROM %9$s r LEFT JOIN %10$s li ON li.%11$s = r.%1$s " +
+                        "GROUP BY r.%1$s, r.%2$s, r.%3$s, r.%4$s, li.%5$s, li.%8$s " +
+                        "ORDER BY r.%1$s, MIN(li.%12$s)",
                 KioskDatabase.ReceiptsTable.ID,
-                KioskDatabase.ReceiptsTable.CREATED_AT,
+                KioskDatabase.ReceiptsTable.CREATED_MILLIS,
                 KioskDatabase.ReceiptsTable.TOTAL_GALLONS,
-                KioskDatabase.ReceiptsTable.TOTAL
-        };
+                KioskDatabase.ReceiptsTable.TOTAL_CENTIMES,
+                KioskDatabase.ReceiptLineItemsTable.SKU,
+                KioskDatabase.ReceiptLineItemsTable.QUANTITY,
+                KioskDatabase.ReceiptLineItemsTable.PRICE_CENTIMES,
+                KioskDatabase.ReceiptLineItemsTable.TYPE,
+                receiptsSource,
+                KioskDatabase.ReceiptLineItemsTable.TABLE_NAME,
+                KioskDatabase.ReceiptLineItemsTable.RECEIPT_ID,
+                KioskDatabase.ReceiptLineItemsTable.ID
+        );
+    }
 
+    public List<Receipt> list() {
         SQLiteDatabase readableDatabase = db.getReadableDatabase();
-        readableDatabase.beginTransaction();
         try {
-            Cursor receiptsCursor = readableDatabase.query(KioskDatabase.ReceiptsTable.TABLE_NAME, columns, null, null, null, null, null);
-            receiptsCursor.moveToFirst();
-
-            while (!receiptsCursor.isAfterLast()) {
-                Date date = null;
-                try {
-                    date = kioskDate.getFormat().parse(receiptsCursor.getString(1));
-                } catch (ParseException e) {
-                    Log.e(TAG, String.format("Invalid date format for receipt with id %d", receiptsCursor.getLong(0)), e);
-                }
-                String receiptId = receiptsCursor.getString(0);
-                Cursor lineItemsCursor = readableDatabase.query(KioskDatabase.ReceiptLineItemsTable.TABLE_NAME, lineItemCols, where(KioskDatabase.ReceiptLineItemsTable.RECEIPT_ID), matches(receiptId), null, null, null);
-                lineItemsCursor.moveToFirst();
-                List<LineItem> lineItems = new ArrayList<LineItem>();
-                while (!lineItemsCursor.isAfterLast()) {
-                    String sku = lineItemsCursor.getString(1);
-                    int quantity = lineItemsCursor.getInt(2);
-                    String price = lineItemsCursor.getString(4);
-                    ReceiptLineItemType type = ReceiptLineItemType.valueOf(lineItemsCursor.getString(5));
-                    Money money = new Money(new BigDecimal(price));
-                    lineItems.add(new LineItem(sku, quantity, money, type));
-                    lineItemsCursor.moveToNext();
-                }
-                lineItemsCursor.close();
-                long id = receiptsCursor.getLong(0);
-                int totalGallons = receiptsCursor.getInt(2);
-                Money total = new Money(new BigDecimal(receiptsCursor.getString(3)));
-                receipts.add(receiptFactory.makeReceipt(id, lineItems, date, totalGallons, total));
-                receiptsCursor.moveToNext();
-            }
-            receiptsCursor.close();
-            readableDatabase.setTransactionSuccessful();
+            List<Receipt> receipts = readReceipts(readableDatabase.rawQuery(ALL_RECEIPTS_QUERY, null));
             return receipts;
         } catch(Exception e) {
             Log.e(TAG, "Failed to load all receipts from the database.", e);
             return new ArrayList<Receipt>();
+        }
+    }
+
+    /**
+     * Hands the receipts to the callback a page at a time. Throws a {@link DatabaseException} when a page
+     * cannot be read, so a failed read is never mistaken for the end of the receipts.
+     */
+    public int forEachPage(int pageSize, PageCallback<Receipt> callback) {
+        int total = 0;
+        long lastId = 0;
+        List<Receipt> page = findPageAfter(lastId, pageSize);
+        while (!page.isEmpty()) {
+            callback.onPage(page);
+            total += page.size();
+            lastId = page.get(page.size() - 1).getId();
+            page = findPageAfter(lastId, pageSize);
+        }
+        return total;
+    }
+
+    private List<Receipt> findPageAfter(long lastId, int pageSize) {
+        SQLiteDatabase readableDatabase = db.getReadableDatabase();
+        try {
+            List<Receipt> receipts = readReceipts(readableDatabase.rawQuery(RECEIPTS_PAGE_QUERY, new String[]{String.valueOf(lastId), String.valueOf(pageSize)}));
+            return receipts;
+        } catch(Exception e) {
+            String message = String.format("Failed to load receipts after id %d from the database.", lastId);
+            Log.e(TAG, message, e);
+            throw new DatabaseException(message, e);
+        }
+    }
+
+    private List<Receipt> readReceipts(Cursor cursor) {
+        List<Receipt> receipts = new ArrayList<Receipt>();
+        try {
+            long currentId = 0;
+            List<LineItem> lineItems = null;
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                if (lineItems == null || id != currentId) {
+                    currentId = id;
+                    lineItems = new ArrayList<LineItem>();
+                    Date date = dateAt(cursor, 1);
+                    int totalGallons = cursor.getInt(2);
+                    Money total = Money.centimes(cursor.getLong(3));
+                    receipts.add(receiptFactory.makeReceipt(id, lineItems, date, totalGallons, total));
+                }
+                if (!cursor.isNull(4)) {
+                    String sku = cursor.getString(4);
+                    int quantity = cursor.getInt(5);
+                    Money price = Money.centimes(cursor.getLong(6));
+                    ReceiptLineItemType type = ReceiptLineItemType.valueOf(cursor.getString(7));
+                    lineItems.add(new LineItem(sku, quantity, price, type));
+                }
+            }
         } finally {
-            readableDatabase.endTransaction();
+            cursor.close();
         }
+        return receipts;
     }
 
     public boolean remove(Receipt receipt) {
         SQLiteDatabase writableDatabase = db.getWritableDatabase();
         writableDatabase.beginTransaction();
         try {
-            writableDatabase.delete(KioskDatabase.ReceiptsTable.TABLE_NAME, where(KioskDatabase.ReceiptsTable.ID), matches(receipt.getId()));
-            writableDatabase.delete(KioskDatabase.ReceiptLineItemsTable.TABLE_NAME, where(KioskDatabase.ReceiptLineItemsTable.RECEIPT_ID), matches(receipt.getId()));
+            delete(writableDatabase, receipt);
             writableDatabase.setTransactionSuccessful();
             return true;
         } catch (Exception e) {
@@ -107,11 +146,33 @@ public class ReceiptsRepository {
         }
     }
 
+    public boolean removeAll(List<Receipt> receipts) {
+        SQLiteDatabase writableDatabase = db.getWritableDatabase();
+        writableDatabase.beginTransaction();
+        try {
+            for (Receipt receipt : receipts) {
+                delete(writableDatabase, receipt);
+            }
+            writableDatabase.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, String.format("Failed to remove %d receipts from the database.", receipts.size()), e);
+            return false;
+        } finally {
+            writableDatabase.endTransaction();
+        }
+    }
+
+    private void delete(SQLiteDatabase writableDatabase, Receipt receipt) {
+        writableDatabase.delete(KioskDatabase.ReceiptsTable.TABLE_NAME, where(KioskDatabase.ReceiptsTable.ID), matches(receipt.getId()));
+        writableDatabase.delete(KioskDatabase.ReceiptLineItemsTable.TABLE_NAME, where(KioskDatabase.ReceiptLineItemsTable.RECEIPT_ID), matches(receipt.getId()));
+    }
+
     public boolean add(Receipt receipt) {
         ContentValues receiptValues = new ContentValues();
-        receiptValues.put(KioskDatabase.ReceiptsTable.CREATED_AT, kioskDate.getFormat().format(receipt.getCreatedDate()));
+        receiptValues.put(KioskDatabase.ReceiptsTable.CREATED_MILLIS, millis(receipt.getCreatedDate()));
         receiptValues.put(KioskDatabase.ReceiptsTable.TOTAL_GALLONS, receipt.getTotalGallons());
-        receiptValues.put(KioskDatabase.ReceiptsTable.TOTAL, String.valueOf(receipt.getTotal().getAmount()));
+        receiptValues.put(KioskDatabase.ReceiptsTable.TOTAL_CENTIMES, receipt.getTotal().getCentimes());
 
         SQLiteDatabase wdb = db.getWritableDatabase();
         wdb.beginTransaction();
@@ -136,9 +197,9 @@ public class ReceiptsRepository {
         writableDatabase.beginTransaction();
         Receipt receipt = receiptFactory.makeReceipt(products, promotions, total);
         ContentValues receiptValues = new ContentValues();
-        receiptValues.put(KioskDatabase.ReceiptsTable.CREATED_AT, kioskDate.getFormat().format(receipt.getCreatedDate()));
+        receiptValues.put(KioskDatabase.ReceiptsTable.CREATED_MILLIS, millis(receipt.getCreatedDate()));
         receiptValues.put(KioskDatabase.ReceiptsTable.TOTAL_GALLONS, totalGallons);
-        receiptValues.put(KioskDatabase.ReceiptsTable.TOTAL, total.getAmount().toString());
+        receiptValues.put(KioskDatabase.ReceiptsTable.TOTAL_CENTIMES, total.getCentimes());
         try {
             long receiptId = writableDatabase.insert(KioskDatabase.ReceiptsTable.TABLE_NAME, null, receiptValues);
             for (LineItem orderedItem : receipt.getLineItems()) {
@@ -161,11 +222,15 @@ public class ReceiptsRepository {
         productLineItemValue.put(KioskDatabase.ReceiptLineItemsTable.RECEIPT_ID, receiptId);
         productLineItemValue.put(KioskDatabase.ReceiptLineItemsTable.SKU, orderedItem.getSku());
         productLineItemValue.put(KioskDatabase.ReceiptLineItemsTable.QUANTITY, orderedItem.getQuantity());
-        productLineItemValue.put(KioskDatabase.ReceiptLineItemsTable.PRICE, orderedItem.getPrice().getAmount().toString());
+        productLineItemValue.put(KioskDatabase.ReceiptLineItemsTable.PRICE_CENTIMES, orderedItem.getPrice().getCentimes());
         return productLineItemValue;
     }
 
+    public int count() {
+        return (int) queryNumEntries(db.getReadableDatabase(), KioskDatabase.ReceiptsTable.TABLE_NAME);
+    }
+
     public boolean isNotEmpty() {
-        return list().size() > 0;
+        return exists(db.getReadableDatabase(), KioskDatabase.ReceiptsTable.TABLE_NAME);
     }
 }
@@ -1,34 +1,80 @@
 package main.java.com.dlohaiti.dlokiosk.db;
 
-import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 import main.java.com.dlohaiti.dlokiosk.ParameterSamplingSites;
 import main.java.com.dlohaiti.dlokiosk.domain.Parameter;
 import main.java.com.dlohaiti.dlokiosk.domain.SamplingSite;
 import com.google.inject.Inject;
-import org.apache.commons.lang3.StringUtils;
+import com.google.inject.Singleton;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.bind;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.insertInto;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
 
+/**
+ * Parameters are cached per sampling site name once loaded. Every write through this repository
+ * invalidates the cache as it runs and again once its transaction has ended, and a load that started
+ * before an invalidation is never cached, so a lookup racing a write cannot keep the rows from before
+ * it. Callers writing through {@link #add(Transaction, ParameterSamplingSites)} in their own unit of
+ * work call {@link #invalidate()} once it commits.
+ */
+@Singleton
 public class SamplingSiteParametersRepository {
     private final static String TAG = SamplingSiteParametersRepository.class.getSimpleName();
+    private final static BulkWriter<Parameter> parameterWriter = new BulkWriter<Parameter>(KioskDatabase.ParametersTable.TABLE_NAME,
+            new String[]{
+                    KioskDatabase.ParametersTable.NAME,
+                    KioskDatabase.ParametersTable.UNIT_OF_MEASURE,
+                    KioskDatabase.ParametersTable.MINIMUM,
+                    KioskDatabase.ParametersTable.MAXIMUM,
+                    KioskDatabase.ParametersTable.IS_OK_NOT_OK,
+                    KioskDatabase.ParametersTable.PRIORITY
+            },
+            new BulkWriter.Binder<Parameter>() {
+                @Override public void bindValues(SQLiteStatement insert, Parameter parameter) {
+                    bind(insert, 1, parameter.getName());
+                    bind(insert, 2, parameter.getUnitOfMeasure());
+                    bind(insert, 3, parameter.getMinimum() == null ? null : String.valueOf(parameter.getMinimum()));
+                    bind(insert, 4, parameter.getMaximum() == null ? null : String.valueOf(parameter.getMaximum()));
+                    bind(insert, 5, String.valueOf(parameter.isOkNotOk()));
+                    bind(insert, 6, parameter.getPriority());
+                }
+            });
+    private final static String INSERT_PARAMETER_SITE = insertInto(KioskDatabase.SamplingSitesParametersTable.TABLE_NAME,
+            KioskDatabase.SamplingSitesParametersTable.PARAMETER_ID,
+            KioskDatabase.SamplingSitesParametersTable.SITE_ID);
     private final KioskDatabase db;
     private final SamplingSiteRepository samplingSiteRepository;
-    private final String[] COLUMNS = new String[] {
+    private final static String PARAMETERS_BY_SITE_NAME = String.format(
+            "SELECT P.%s, P.%s, P.%s, P.%s, P.%s, P.%s FROM %s P JOIN %s SP ON SP.%s = P.%s JOIN %s S ON S.%s = SP.%s WHERE S.%s = ?",
             KioskDatabase.ParametersTable.NAME,
             KioskDatabase.ParametersTable.UNIT_OF_MEASURE,
             KioskDatabase.ParametersTable.MINIMUM,
             KioskDatabase.ParametersTable.MAXIMUM,
             KioskDatabase.ParametersTable.IS_OK_NOT_OK,
-            KioskDatabase.ParametersTable.PRIORITY
-    };
+            KioskDatabase.ParametersTable.PRIORITY,
+            KioskDatabase.ParametersTable.TABLE_NAME,
+            KioskDatabase.SamplingSitesParametersTable.TABLE_NAME,
+            KioskDatabase.SamplingSitesParametersTable.PARAMETER_ID,
+            KioskDatabase.ParametersTable.ID,
+            KioskDatabase.SamplingSitesTable.TABLE_NAME,
+            KioskDatabase.SamplingSitesTable.ID,
+            KioskDatabase.SamplingSitesParametersTable.SITE_ID,
+            KioskDatabase.SamplingSitesTable.NAME);
+    private final Map<String, SortedSet<Parameter>> parametersBySite = new HashMap<String, SortedSet<Parameter>>();
+    private long cacheVersion = 0;
 
     @Inject
     public SamplingSiteParametersRepository(KioskDatabase db, SamplingSiteRepository samplingSiteRepository) {
@@ -37,117 +83,206 @@ public class SamplingSiteParametersRepository {
     }
 
     public SortedSet<Parameter> findBySamplingSite(SamplingSite samplingSite) {
+        long version = cacheVersion();
+        SortedSet<Parameter> parameters = cached(samplingSite.getName());
+        if (parameters == null) {
+            parameters = load(samplingSite);
+            if (parameters == null) {
+                return new TreeSet<Parameter>();
+            }
+            cache(version, samplingSite.getName(), parameters);
+        }
+        return new TreeSet<Parameter>(parameters);
+    }
+
+    public synchronized void invalidate() {
+        cacheVersion++;
+        parametersBySite.clear();
+    }
+
+    private synchronized long cacheVersion() {
+        return cacheVersion;
+    }
+
+    private synchronized SortedSet<Parameter> cached(String siteName) {
+        return parametersBySite.get(siteName);
+    }
+
+    private synchronized void cache(long loadedAtVersion, String siteName, SortedSet<Parameter> parameters) {
+        if (loadedAtVersion == cacheVersion) {
+            parametersBySite.put(siteName, parameters);
+        }
+    }
+
+    private SortedSet<Parameter> load(SamplingSite samplingSite) {
         SortedSet<Parameter> parameters = new TreeSet<Parameter>();
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
         try {
-            int samplingSiteId = fetchSamplingSiteId(samplingSite, rdb);
-            String[] parameterIds = fetchParameterIds(rdb, samplingSiteId);
-            Cursor query = rdb.query(KioskDatabase.ParametersTable.TABLE_NAME, COLUMNS, whereIn(KioskDatabase.ParametersTable.ID, parameterIds.length), parameterIds, null, null, null);
-            if(query.getCount() < 1) {
-                throw new RuntimeException(String.format("No parameters found with ids: %s", StringUtils.join(parameterIds, ",")));
+            Cursor query = rdb.rawQuery(PARAMETERS_BY_SITE_NAME, matches(samplingSite.getName()));
+            try {
+                while(query.moveToNext()) {
+                    String name = query.getString(0);
+                    String unitOfMeasure = query.getString(1);
+                    String minimum = query.getString(2);
+                    String maximum = query.getString(3);
+                    boolean isOkNotOk = Boolean.parseBoolean(query.getString(4));
+                    Integer priority = query.getInt(5);
+                    parameters.add(new Parameter(name, unitOfMeasure, minimum, maximum, isOkNotOk, priority));
+                }
+            } finally {
+                query.close();
             }
-            query.moveToFirst();
-            while(!query.isAfterLast()) {
-                String name = query.getString(0);
-                String unitOfMeasure = query.getString(1);
-                String minimum = query.getString(2);
-                String maximum = query.getString(3);
-                boolean isOkNotOk = Boolean.parseBoolean(query.getString(4));
-                Integer priority = query.getInt(5);
-                parameters.add(new Parameter(name, unitOfMeasure, minimum, maximum, isOkNotOk, priority));
-                query.moveToNext();
+            if(parameters.isEmpty()) {
+                Log.w(TAG, String.format("No parameters found for sampling site %s", samplingSite.getName()));
             }
-            query.close();
-            rdb.setTransactionSuccessful();
             return parameters;
         } catch (Exception e) {
             Log.e(TAG, String.format("Problem loading parameters for sampling site %s", samplingSite.getName()), e);
-            return new TreeSet<Parameter>();
-        } finally {
-            rdb.endTransaction();
+            return null;
+        }
+    }
+
+    public boolean replaceAll(final List<ParameterSamplingSites> samplingSiteParameters) {
+        boolean replaced = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                delete(transaction.getDatabase());
+                Set<String> siteNames = new LinkedHashSet<String>();
+                for(ParameterSamplingSites pss : samplingSiteParameters) {
+                    siteNames.addAll(namesOf(pss.getSamplingSites()));
+                }
+                Map<String, Long> siteIds = samplingSiteRepository.findOrCreateByNames(transaction, siteNames);
+                for(ParameterSamplingSites pss : samplingSiteParameters) {
+                    if(!add(transaction, pss, siteIds)) {
+                        break;
+                    }
+                }
+                return true;
+            }
+        });
+        invalidate();
+        if(!replaced) {
+            Log.e(TAG, "Failed to replace parameters, sampling sites, and relationships");
         }
+        return replaced;
     }
 
-    private String[] fetchParameterIds(SQLiteDatabase rdb, int samplingSiteId) {
-        Cursor sp = rdb.query(KioskDatabase.SamplingSitesParametersTable.TABLE_NAME, new String[] {KioskDatabase.SamplingSitesParametersTable.PARAMETER_ID}, where(KioskDatabase.SamplingSitesParametersTable.SITE_ID), matches(samplingSiteId), null, null, null);
-        if(sp.getCount() < 1) {
-            throw new RuntimeException(String.format("Expected at least 1 parameter for Sampling Site; got %d", sp.getCount()));
+    public boolean deleteAll() {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.beginTransaction();
+        try {
+            delete(wdb);
+            wdb.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to delete parameters, sampling sites, and relationships", e);
+            return false;
+        } finally {
+            wdb.endTransaction();
+            invalidate();
         }
-        sp.moveToFirst();
-        //TODO
-        String[] parameterIds = new String[sp.getCount()];
-        int i = 0;
-        while(!sp.isAfterLast()) {
-            parameterIds[i] = sp.getString(0);
-            sp.moveToNext();
-            i++;
+    }
+
+    public boolean add(final ParameterSamplingSites parameterSamplingSites) {
+        boolean added = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                return add(transaction, parameterSamplingSites);
+            }
+        });
+        invalidate();
+        if(!added) {
+            Log.e(TAG, String.format("Failed to add Parameter[%s] and its sampling sites", parameterSamplingSites.getParameter().getName()));
         }
-        sp.close();
-        return parameterIds;
+        return added;
+    }
+
+    public boolean add(Transaction transaction, ParameterSamplingSites parameterSamplingSites) {
+        Set<String> siteNames = namesOf(parameterSamplingSites.getSamplingSites());
+        return add(transaction, parameterSamplingSites, samplingSiteRepository.findOrCreateByNames(transaction, siteNames));
     }
 
-    private int fetchSamplingSiteId(SamplingSite samplingSite, SQLiteDatabase rdb) {
-        Cursor c = rdb.query(KioskDatabase.SamplingSitesTable.TABLE_NAME, new String[] {KioskDatabase.SamplingSitesTable.ID}, where(KioskDatabase.SamplingSitesTable.NAME), matches(samplingSite.getName()), null, null, null);
-        if(c.getCount() != 1) {
-            throw new RuntimeException(String.format("Expected 1 result; got %d.", c.getCount()));
+    private boolean add(Transaction transaction, ParameterSamplingSites parameterSamplingSites, Map<String, Long> siteIds) {
+        invalidate();
+        Parameter parameter = parameterSamplingSites.getParameter();
+        long parameterId = parameterWriter.insert(transaction, parameter);
+        if(parameterId == -1) {
+            Log.e(TAG, String.format("Error inserting Parameter[%s]", parameter.getName()));
+            return false;
         }
-        c.moveToFirst();
-        int samplingSiteId = c.getInt(0);
-        c.close();
-        return samplingSiteId;
+
+        SQLiteStatement insertParameterSite = transaction.compile(INSERT_PARAMETER_SITE);
+        for(SamplingSite site : parameterSamplingSites.getSamplingSites()) {
+            Long siteId = siteIds.get(site.getName());
+            if(siteId == null) {
+                Log.e(TAG, String.format("No id for SamplingSite[%s]; skipping its Parameter[%s] relationship", site.getName(), parameter.getName()));
+                continue;
+            }
+            insertParameterSite.bindLong(1, parameterId);
+            insertParameterSite.bindLong(2, siteId);
+            if(insertParameterSite.executeInsert() == -1) {
+                Log.e(TAG, String.format("Error inserting SamplingSite[%s]-Parameter[%s] relationship", site.getName(), parameter.getName()));
+            }
+        }
+        return true;
     }
 
-    private static String whereIn(String columnName, int numberOfItems) {
-        String replacements = StringUtils.repeat("?", ",", numberOfItems);
-        return String.format("%s IN (%s)", columnName, replacements);
+    /**
+     * Replaces the parameter with the same name, including which sampling sites it is measured at.
+     */
+    public boolean save(final ParameterSamplingSites parameterSamplingSites) {
+        final String parameterName = parameterSamplingSites.getParameter().getName();
+        boolean saved = db.inTransaction(new UnitOfWork() {
+            @Override public boolean perform(Transaction transaction) {
+                delete(transaction.getDatabase(), parameterName);
+                return add(transaction, parameterSamplingSites);
+            }
+        });
+        invalidate();
+        if(!saved) {
+            Log.e(TAG, String.format("Failed to save Parameter[%s] and its sampling sites", parameterName));
+        }
+        return saved;
     }
 
-    public boolean replaceAll(List<ParameterSamplingSites> samplingSiteParameters) {
+    public boolean remove(String parameterName) {
         SQLiteDatabase wdb = db.getWritableDatabase();
         wdb.beginTransaction();
         try {
-            wdb.delete(KioskDatabase.SamplingSitesParametersTable.TABLE_NAME, null, null);
-            wdb.delete(KioskDatabase.ParametersTable.TABLE_NAME, null, null);
-            wdb.delete(KioskDatabase.SamplingSitesTable.TABLE_NAME, null, null);
-            for(ParameterSamplingSites pss : samplingSiteParameters) {
-                ContentValues parameterValues = new ContentValues();
-                Parameter parameter = pss.getParameter();
-                String parameterName = parameter.getName();
-                parameterValues.put(KioskDatabase.ParametersTable.NAME, parameterName);
-                parameterValues.put(KioskDatabase.ParametersTable.UNIT_OF_MEASURE, parameter.getUnitOfMeasure());
-                if(parameter.getMinimum() != null) {
-                    parameterValues.put(KioskDatabase.ParametersTable.MINIMUM, String.valueOf(parameter.getMinimum()));
-                }
-                if(parameter.getMaximum() != null) {
-                    parameterValues.put(KioskDatabase.ParametersTable.MAXIMUM, String.valueOf(parameter.getMaximum()));
-                }
-                parameterValues.put(KioskDatabase.ParametersTable.IS_OK_NOT_OK, String.valueOf(parameter.isOkNotOk()));
-                parameterValues.put(KioskDatabase.ParametersTable.PRIORITY, parameter.getPriority());
-                long parameterId = wdb.insert(KioskDatabase.ParametersTable.TABLE_NAME, null, parameterValues);
-                if(parameterId == -1) {
-                    Log.e(TAG, String.format("Error inserting Parameter[%s]", parameterName));
-                    break;
-                }
-
-                for(SamplingSite site : pss.getSamplingSites()) {
-                    SamplingSite existingSite = samplingSiteRepository.findOrCreateByName(site.getName());
-                    ContentValues parameterSites = new ContentValues();
-                    parameterSites.put(KioskDatabase.SamplingSitesParametersTable.PARAMETER_ID, parameterId);
-                    parameterSites.put(KioskDatabase.SamplingSitesParametersTable.SITE_ID, existingSite.getId());
-                    long rowId = wdb.insert(KioskDatabase.SamplingSitesParametersTable.TABLE_NAME, null, parameterSites);
-                    if(rowId == -1) {
-                        Log.e(TAG, String.format("Error inserting SamplingSite[%s]-Parameter[%s] relationship", site.getName(), parameterName));
-                    }
-                }
-            }
+            delete(wdb, parameterName);
             wdb.setTransactionSuccessful();
             return true;
         } catch (Exception e) {
-            Log.e(TAG, "Failed to replace parameters, sampling sites, and relationships", e);
+            Log.e(TAG, String.format("Failed to remove Parameter[%s]", parameterName), e);
             return false;
         } finally {
             wdb.endTransaction();
+            invalidate();
         }
     }
+
+    private Set<String> namesOf(List<SamplingSite> samplingSites) {
+        Set<String> names = new LinkedHashSet<String>();
+        for(SamplingSite site : samplingSites) {
+            names.add(site.getName());
+        }
+        return names;
+    }
+
+    private void delete(SQLiteDatabase wdb, String parameterName) {
+        invalidate();
+        String parameterIds = String.format("SELECT %s FROM %s WHERE %s",
+                KioskDatabase.ParametersTable.ID,
+                KioskDatabase.ParametersTable.TABLE_NAME,
+                where(KioskDatabase.ParametersTable.NAME));
+        wdb.delete(KioskDatabase.SamplingSitesParametersTable.TABLE_NAME,
+                String.format("%s IN (%s)", KioskDatabase.SamplingSitesParametersTable.PARAMETER_ID, parameterIds),
+                matches(parameterName));
+        wdb.delete(KioskDatabase.ParametersTable.TABLE_NAME, where(KioskDatabase.ParametersTable.NAME), matches(parameterName));
+    }
+
+    private void delete(SQLiteDatabase wdb) {
+        invalidate();
+        wdb.delete(KioskDatabase.SamplingSitesParametersTable.TABLE_NAME, null, null);
+        wdb.delete(KioskDatabase.ParametersTable.TABLE_NAME, null, null);
+        wdb.delete(KioskDatabase.SamplingSitesTable.TABLE_NAME, null, null);
+    }
 }
@@ -3,15 +3,21 @@ package main.java.com.dlohaiti.dlokiosk.db;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 import main.java.com.dlohaiti.dlokiosk.domain.SamplingSite;
 import com.google.inject.Inject;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.bind;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.matches;
 import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.where;
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.whereIn;
 
 public class SamplingSiteRepository {
     private final static String TAG = SamplingSiteRepository.class.getSimpleName();
@@ -19,6 +25,13 @@ public class SamplingSiteRepository {
             KioskDatabase.SamplingSitesTable.ID,
             KioskDatabase.SamplingSitesTable.NAME
     };
+    private final static BulkWriter<String> writer = new BulkWriter<String>(KioskDatabase.SamplingSitesTable.TABLE_NAME,
+            new String[]{KioskDatabase.SamplingSitesTable.NAME},
+            new BulkWriter.Binder<String>() {
+                @Override public void bindValues(SQLiteStatement insert, String name) {
+                    bind(insert, 1, name);
+                }
+            });
     private final KioskDatabase db;
 
     @Inject
@@ -29,7 +42,6 @@ public class SamplingSiteRepository {
     public SortedSet<SamplingSite> list() {
         SortedSet<SamplingSite> sites = new TreeSet<SamplingSite>();
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
         try {
             Cursor c = rdb.query(KioskDatabase.SamplingSitesTable.TABLE_NAME, COLUMNS, null, null, null, null, null);
             c.moveToFirst();
@@ -38,19 +50,15 @@ public class SamplingSiteRepository {
                 c.moveToNext();
             }
             c.close();
-            rdb.setTransactionSuccessful();
             return sites;
         } catch (Exception e) {
             Log.e(TAG, "Failed to load sampling sites from database.", e);
             return new TreeSet<SamplingSite>();
-        } finally {
-            rdb.endTransaction();
         }
     }
 
     public SamplingSite findByName(String name) {
         SQLiteDatabase rdb = db.getReadableDatabase();
-        rdb.beginTransaction();
         try {
             Cursor c = rdb.query(KioskDatabase.SamplingSitesTable.TABLE_NAME, COLUMNS, where(KioskDatabase.SamplingSitesTable.NAME), matches(name), null, null, null);
             if (c.getCount() != 1) {
@@ -59,13 +67,10 @@ public class SamplingSiteRepository {
             c.moveToFirst();
             SamplingSite samplingSite = new SamplingSite(c.getLong(0), c.getString(1));
             c.close();
-            rdb.setTransactionSuccessful();
             return samplingSite;
         } catch (Exception e) {
             Log.e(TAG, String.format("Could not find Sampling Site with name %s.", name), e);
             return new SamplingSite(null);
-        } finally {
-            rdb.endTransaction();
         }
     }
 
@@ -91,4 +96,35 @@ public class SamplingSiteRepository {
             wdb.endTransaction();
         }
     }
+
+    /**
+     * Resolves the ids of all the named sites with one query, inserting the ones that do not exist yet.
+     * Names that could not be inserted are left out of the map.
+     */
+    Map<String, Long> findOrCreateByNames(Transaction transaction, Collection<String> names) {
+        Map<String, Long> ids = new HashMap<String, Long>();
+        if (names.isEmpty()) {
+            return ids;
+        }
+        String[] args = names.toArray(new String[names.size()]);
+        Cursor c = transaction.getDatabase().query(KioskDatabase.SamplingSitesTable.TABLE_NAME, COLUMNS, whereIn(KioskDatabase.SamplingSitesTable.NAME, args.length), args, null, null, null);
+        try {
+            while (c.moveToNext()) {
+                ids.put(c.getString(1), c.getLong(0));
+            }
+        } finally {
+            c.close();
+        }
+        for (String name : names) {
+            if (!ids.containsKey(name)) {
+                long id = writer.insert(transaction, name);
+                if (id == -1) {
+                    Log.e(TAG, "Failed to create sampling site with name " + name);
+                } else {
+                    ids.put(name, id);
+                }
+            }
+        }
+        return ids;
+    }
 }
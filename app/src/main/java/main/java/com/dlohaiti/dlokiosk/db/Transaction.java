@@ -0,0 +1,42 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The writable database inside {@link KioskDatabase#inTransaction(UnitOfWork)}. Statements compiled
+ * through it are kept until the transaction ends, so repeated inserts only bind and execute.
+ */
+public class Transaction {
+    private final SQLiteDatabase wdb;
+    private final Map<String, SQLiteStatement> statements = new HashMap<String, SQLiteStatement>();
+
+    Transaction(SQLiteDatabase wdb) {
+        this.wdb = wdb;
+    }
+
+    public SQLiteDatabase getDatabase() {
+        return wdb;
+    }
+
+    public SQLiteStatement compile(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = wdb.compileStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearBindings();
+        }
+        return statement;
+    }
+
+    void close() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+    }
+}
@@ -0,0 +1,8 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+public interface UnitOfWork {
+    /**
+     * @return false to roll back everything written through the transaction
+     */
+    boolean perform(Transaction transaction);
+}
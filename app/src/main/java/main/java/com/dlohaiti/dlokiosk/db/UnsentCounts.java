@@ -0,0 +1,33 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+public class UnsentCounts {
+    private final int readings;
+    private final int receipts;
+    private final int deliveries;
+
+    public UnsentCounts(int readings, int receipts, int deliveries) {
+        this.readings = readings;
+        this.receipts = receipts;
+        this.deliveries = deliveries;
+    }
+
+    public int getReadings() {
+        return readings;
+    }
+
+    public int getReceipts() {
+        return receipts;
+    }
+
+    public int getDeliveries() {
+        return deliveries;
+    }
+
+    public int getTotal() {
+        return readings + receipts + deliveries;
+    }
+
+    public boolean isEmpty() {
+        return getTotal() == 0;
+    }
+}
@@ -0,0 +1,57 @@
+package main.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.Cursor;
+import android.util.Log;
+import com.google.inject.Inject;
+
+import static main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseUtils.existsIn;
+
+/**
+ * Answers "is anything waiting to be sent?" straight from the tables, without loading readings,
+ * receipts or deliveries.
+ */
+public class UnsentDataRepository {
+    private final static String TAG = UnsentDataRepository.class.getSimpleName();
+    private final static String HAS_ANY_QUERY = String.format("SELECT %s OR %s OR %s",
+            existsIn(KioskDatabase.ReadingsTable.TABLE_NAME),
+            existsIn(KioskDatabase.ReceiptsTable.TABLE_NAME),
+            existsIn(KioskDatabase.DeliveriesTable.TABLE_NAME));
+    private final static String COUNTS_QUERY = String.format(
+            "SELECT (SELECT COUNT(*) FROM %s), (SELECT COUNT(*) FROM %s), (SELECT COUNT(*) FROM %s)",
+            KioskDatabase.ReadingsTable.TABLE_NAME,
+            KioskDatabase.ReceiptsTable.TABLE_NAME,
+            KioskDatabase.DeliveriesTable.TABLE_NAME);
+    private final KioskDatabase db;
+
+    @Inject
+    public UnsentDataRepository(KioskDatabase db) {
+        this.db = db;
+    }
+
+    public boolean hasAny() {
+        Cursor cursor = db.getReadableDatabase().rawQuery(HAS_ANY_QUERY, null);
+        try {
+            return cursor.moveToFirst() && cursor.getInt(0) == 1;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to check for unsent data.", e);
+            return false;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public UnsentCounts counts() {
+        Cursor cursor = db.getReadableDatabase().rawQuery(COUNTS_QUERY, null);
+        try {
+            if (!cursor.moveToFirst()) {
+                return new UnsentCounts(0, 0, 0);
+            }
+            return new UnsentCounts(cursor.getInt(0), cursor.getInt(1), cursor.getInt(2));
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to count unsent data.", e);
+            return new UnsentCounts(0, 0, 0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package main.java.com.dlohaiti.dlokiosk.domain;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out one {@link ShoppingCart} per sale flow, so a sale at the counter and, say, a delivery-agent
+ * pre-order each get their own cart. A session starts the first time it is opened and ends when it
+ * is closed; the next open starts over with an empty cart.
+ */
+@Singleton
+public class CartSessions {
+    public static final String COUNTER_SALE = "COUNTER_SALE";
+    private final Provider<ShoppingCart> carts;
+    private final Map<String, ShoppingCart> sessions = new HashMap<String, ShoppingCart>();
+
+    @Inject
+    public CartSessions(Provider<ShoppingCart> carts) {
+        this.carts = carts;
+    }
+
+    public synchronized ShoppingCart open(String session) {
+        ShoppingCart cart = sessions.get(session);
+        if (cart == null) {
+            cart = carts.get();
+            sessions.put(session, cart);
+        }
+        return cart;
+    }
+
+    public synchronized void close(String session) {
+        sessions.remove(session);
+    }
+}
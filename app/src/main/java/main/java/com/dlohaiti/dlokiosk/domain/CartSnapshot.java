@@ -0,0 +1,39 @@
+package main.java.com.dlohaiti.dlokiosk.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An unchangeable copy of a {@link ShoppingCart}'s lines and promotions, safe to price or check out on
+ * another thread while the cart itself keeps changing on its own.
+ */
+public class CartSnapshot {
+    private final List<Product> products;
+    private final List<Promotion> promotions;
+    private final Money subtotal;
+    private final int totalGallons;
+
+    public CartSnapshot(List<Product> products, List<Promotion> promotions, Money subtotal, int totalGallons) {
+        this.products = Collections.unmodifiableList(new ArrayList<Product>(products));
+        this.promotions = Collections.unmodifiableList(new ArrayList<Promotion>(promotions));
+        this.subtotal = subtotal;
+        this.totalGallons = totalGallons;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<Promotion> getPromotions() {
+        return promotions;
+    }
+
+    public Money getSubtotal() {
+        return subtotal;
+    }
+
+    public int getTotalGallons() {
+        return totalGallons;
+    }
+}
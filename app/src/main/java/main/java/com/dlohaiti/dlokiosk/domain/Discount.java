@@ -1,7 +1,5 @@
 package main.java.com.dlohaiti.dlokiosk.domain;
 
-import java.math.BigDecimal;
-
 public class Discount {
     private final String sku;
     private final Money amount;
@@ -42,7 +40,7 @@ public class Discount {
         return sku.equals(product.getSku());
     }
 
-    public BigDecimal getAmount() {
-        return amount.getAmount();
+    public Money getAmount() {
+        return amount;
     }
 }
@@ -1,28 +1,73 @@
 package main.java.com.dlohaiti.dlokiosk.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Currency;
 
+/**
+ * An amount of HTG held as a whole number of centimes, so sums and differences are exact. Amounts
+ * with more than two decimals are rounded half up when they are converted.
+ */
 public class Money {
-    private final BigDecimal amount;
+    public static final Money ZERO = new Money(0L);
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal(100);
     // Money without currency feels wrong, but this app is only used with HTG
-    private final Currency currency = Currency.getInstance("HTG");
+    private static final Currency CURRENCY = Currency.getInstance("HTG");
+    private final long centimes;
 
     public Money(BigDecimal amount) {
-        this.amount = amount;
+        this(amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue());
+    }
+
+    private Money(long centimes) {
+        this.centimes = centimes;
+    }
+
+    public static Money centimes(long centimes) {
+        return centimes == 0 ? ZERO : new Money(centimes);
     }
 
     public BigDecimal getAmount() {
-        return amount.setScale(2, RoundingMode.HALF_UP);
+        return BigDecimal.valueOf(centimes, 2);
+    }
+
+    @JsonIgnore public long getCentimes() {
+        return centimes;
     }
 
     public String getCurrencyCode() {
-        return currency.getCurrencyCode();
+        return CURRENCY.getCurrencyCode();
+    }
+
+    @JsonIgnore public boolean isNegative() {
+        return centimes < 0;
     }
 
     public Money times(int quantity) {
-        return new Money(amount.multiply(new BigDecimal(quantity)));
+        return centimes(centimes * quantity);
+    }
+
+    public Money plus(Money other) {
+        return centimes(centimes + other.centimes);
+    }
+
+    public Money minus(Money other) {
+        return centimes(centimes - other.centimes);
+    }
+
+    public Money percent(BigDecimal rate) {
+        return new Money(new BigDecimal(centimes).multiply(rate).divide(ONE_HUNDRED, 0, RoundingMode.HALF_UP).longValue());
+    }
+
+    public Money dividedBy(int parts) {
+        long share = centimes / parts;
+        long remainder = centimes % parts;
+        if (Math.abs(remainder) * 2 >= parts) {
+            share += Long.signum(centimes);
+        }
+        return centimes(share);
     }
 
     @Override
@@ -32,27 +77,18 @@ public class Money {
 
         Money money = (Money) o;
 
-        if (amount != null ? !amount.equals(money.amount) : money.amount != null) return false;
-        if (!currency.equals(money.currency)) return false;
-
-        return true;
+        return centimes == money.centimes;
     }
 
     @Override
     public int hashCode() {
-        int result = amount != null ? amount.hashCode() : 0;
-        result = 31 * result + currency.hashCode();
-        return result;
+        return (int) (centimes ^ (centimes >>> 32));
     }
 
     @Override public String toString() {
         return "Money{" +
-                "amount=" + amount +
-                ", currency=" + currency +
+                "amount=" + getAmount() +
+                ", currency=" + CURRENCY +
                 '}';
     }
-
-    public Money minus(BigDecimal amount) {
-        return new Money(this.amount.subtract(amount));
-    }
 }
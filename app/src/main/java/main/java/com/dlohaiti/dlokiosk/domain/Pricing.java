@@ -0,0 +1,34 @@
+package main.java.com.dlohaiti.dlokiosk.domain;
+
+import java.util.Collections;
+import java.util.List;
+
+public class Pricing {
+    private final List<LineItem> lineItems;
+    private final Money subtotal;
+    private final Money total;
+    private final int totalGallons;
+
+    public Pricing(List<LineItem> lineItems, Money subtotal, Money total, int totalGallons) {
+        this.lineItems = Collections.unmodifiableList(lineItems);
+        this.subtotal = subtotal;
+        this.total = total;
+        this.totalGallons = totalGallons;
+    }
+
+    public List<LineItem> getLineItems() {
+        return lineItems;
+    }
+
+    public Money getSubtotal() {
+        return subtotal;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public int getTotalGallons() {
+        return totalGallons;
+    }
+}
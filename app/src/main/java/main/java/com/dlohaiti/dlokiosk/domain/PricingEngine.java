@@ -0,0 +1,84 @@
+package main.java.com.dlohaiti.dlokiosk.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static main.java.com.dlohaiti.dlokiosk.db.ReceiptLineItemType.PRODUCT;
+import static main.java.com.dlohaiti.dlokiosk.db.ReceiptLineItemType.PROMOTION;
+
+/**
+ * Prices a cart in linear time. Promotions are sorted once and split into basket promotions and SKU
+ * promotions keyed by product SKU. Basket discounts are shared equally between the units in the cart,
+ * with the centimes that do not divide evenly going to the first line, so the lines always add up to
+ * the subtotal less the basket discount. The promotions for a SKU apply once, to one unit of the first
+ * product with that SKU.
+ */
+public class PricingEngine {
+
+    public Pricing price(List<Product> products, List<Promotion> promotions) {
+        List<LineItem> lineItems = new ArrayList<LineItem>(promotions.size() + products.size());
+        for (Promotion promotion : promotions) {
+            lineItems.add(new LineItem(promotion.getSku(), promotion.getQuantity(), Money.ZERO, PROMOTION));
+        }
+
+        List<Promotion> sorted = new ArrayList<Promotion>(promotions);
+        Collections.sort(sorted); // percentages and large amounts first
+        List<Promotion> basketPromotions = new ArrayList<Promotion>();
+        Map<String, List<Promotion>> skuPromotions = new HashMap<String, List<Promotion>>();
+        for (Promotion promotion : sorted) {
+            if (promotion.appliesToBasket()) {
+                basketPromotions.add(promotion);
+            } else {
+                List<Promotion> forSku = skuPromotions.get(promotion.getProductSku());
+                if (forSku == null) {
+                    forSku = new ArrayList<Promotion>();
+                    skuPromotions.put(promotion.getProductSku(), forSku);
+                }
+                forSku.add(promotion);
+            }
+        }
+
+        long subtotal = 0;
+        int totalGallons = 0;
+        int units = 0;
+        for (Product product : products) {
+            subtotal += product.getPrice().times(product.getQuantity()).getCentimes();
+            totalGallons += product.getGallons() * product.getQuantity();
+            units += product.getQuantity();
+        }
+
+        long basketDiscount = 0;
+        long unitShare = 0;
+        long leftover = 0;
+        if (units > 0) {
+            Money remaining = Money.centimes(subtotal);
+            for (Promotion promotion : basketPromotions) {
+                Money discount = promotion.discountCart(remaining);
+                remaining = remaining.minus(discount);
+                basketDiscount += discount.getCentimes();
+            }
+            unitShare = basketDiscount / units;
+            leftover = basketDiscount % units;
+        }
+
+        long total = 0;
+        for (Product product : products) {
+            Money lineShare = Money.centimes(unitShare * product.getQuantity() + leftover);
+            leftover = 0;
+            Money price = product.getPrice().times(product.getQuantity()).minus(lineShare);
+            List<Promotion> forSku = skuPromotions.remove(product.getSku());
+            if (forSku != null) {
+                for (Promotion promotion : forSku) {
+                    price = price.minus(promotion.discountFor(product));
+                }
+            }
+            lineItems.add(new LineItem(product.getSku(), product.getQuantity(), price, PRODUCT));
+            total += price.getCentimes();
+        }
+
+        return new Pricing(lineItems, Money.centimes(subtotal), Money.centimes(Math.max(total, 0)), totalGallons);
+    }
+}
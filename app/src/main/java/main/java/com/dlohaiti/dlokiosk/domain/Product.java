@@ -1,12 +1,11 @@
 package main.java.com.dlohaiti.dlokiosk.domain;
 
-import android.graphics.Bitmap;
 import main.java.com.dlohaiti.dlokiosk.VisibleGridItem;
 
 public class Product implements VisibleGridItem {
     private final Long id;
     private final String sku;
-    private final Bitmap imageResource;
+    private final String iconKey;
     private final boolean requiresQuantity;
     private final Integer quantity;
     private final Integer minimumQuantity;
@@ -17,7 +16,7 @@ public class Product implements VisibleGridItem {
 
     public Product(Long id,
                    String sku,
-                   Bitmap imageResource,
+                   String iconKey,
                    boolean requiresQuantity,
                    Integer quantity,
                    Integer minimumQuantity,
@@ -27,7 +26,7 @@ public class Product implements VisibleGridItem {
                    Integer gallons) {
         this.id = id;
         this.sku = sku;
-        this.imageResource = imageResource;
+        this.iconKey = iconKey;
         this.requiresQuantity = requiresQuantity;
         this.quantity = quantity;
         this.minimumQuantity = minimumQuantity;
@@ -38,7 +37,26 @@ public class Product implements VisibleGridItem {
     }
 
     public Product withQuantity(int quantity) {
-        return new Product(id, sku, imageResource, requiresQuantity, quantity, minimumQuantity, maximumQuantity, price, description, gallons);
+        return new Product(id, sku, iconKey, requiresQuantity, quantity, minimumQuantity, maximumQuantity, price, description, gallons);
+    }
+
+    public Product withAddedQuantity(int added) {
+        return withQuantity(quantity + added).withinQuantityLimits();
+    }
+
+    public Product withinQuantityLimits() {
+        int limited = quantity;
+        if (minimumQuantity != null && minimumQuantity > 0 && limited < minimumQuantity) {
+            limited = minimumQuantity;
+        }
+        if (maximumQuantity != null && maximumQuantity > 0 && limited > maximumQuantity) {
+            limited = maximumQuantity;
+        }
+        return limited == quantity ? this : withQuantity(limited);
+    }
+
+    public boolean isSameLineAs(Product other) {
+        return sku != null && sku.equals(other.sku) && (price == null ? other.price == null : price.equals(other.price));
     }
 
     @Override public Long getId() {
@@ -49,8 +67,8 @@ public class Product implements VisibleGridItem {
         return sku;
     }
 
-    @Override public Bitmap getImageResource() {
-        return imageResource;
+    @Override public String getIconKey() {
+        return iconKey;
     }
 
     public boolean requiresQuantity() {
@@ -92,8 +110,7 @@ public class Product implements VisibleGridItem {
         if (description != null ? !description.equals(product.description) : product.description != null) return false;
         if (gallons != null ? !gallons.equals(product.gallons) : product.gallons != null) return false;
         if (id != null ? !id.equals(product.id) : product.id != null) return false;
-        if (imageResource != null ? !imageResource.equals(product.imageResource) : product.imageResource != null)
-            return false;
+        if (iconKey != null ? !iconKey.equals(product.iconKey) : product.iconKey != null) return false;
         if (maximumQuantity != null ? !maximumQuantity.equals(product.maximumQuantity) : product.maximumQuantity != null)
             return false;
         if (minimumQuantity != null ? !minimumQuantity.equals(product.minimumQuantity) : product.minimumQuantity != null)
@@ -109,7 +126,7 @@ public class Product implements VisibleGridItem {
     public int hashCode() {
         int result = id != null ? id.hashCode() : 0;
         result = 31 * result + (sku != null ? sku.hashCode() : 0);
-        result = 31 * result + (imageResource != null ? imageResource.hashCode() : 0);
+        result = 31 * result + (iconKey != null ? iconKey.hashCode() : 0);
         result = 31 * result + (requiresQuantity ? 1 : 0);
         result = 31 * result + (quantity != null ? quantity.hashCode() : 0);
         result = 31 * result + (minimumQuantity != null ? minimumQuantity.hashCode() : 0);
@@ -1,12 +1,9 @@
 package main.java.com.dlohaiti.dlokiosk.domain;
 
-import android.graphics.Bitmap;
 import main.java.com.dlohaiti.dlokiosk.VisibleGridItem;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
 import java.util.Date;
 import java.util.List;
 
@@ -19,7 +16,7 @@ public class Promotion implements VisibleGridItem, Orderable, Comparable<Promoti
     private final Date endDate;
     private final BigDecimal amount;
     private final PromotionType type;
-    private final Bitmap resource;
+    private final String iconKey;
 
     public Promotion(Long id,
                      String sku,
@@ -29,7 +26,7 @@ public class Promotion implements VisibleGridItem, Orderable, Comparable<Promoti
                      Date endDate,
                      String amount,
                      PromotionType percent,
-                     Bitmap resource) {
+                     String iconKey) {
         this.id = id;
         this.sku = sku;
         this.appliesTo = appliesTo;
@@ -38,7 +35,7 @@ public class Promotion implements VisibleGridItem, Orderable, Comparable<Promoti
         this.endDate = endDate;
         this.amount = new BigDecimal(amount);
         this.type = percent;
-        this.resource = resource;
+        this.iconKey = iconKey;
     }
 
     public boolean appliesTo(List<Product> products) {
@@ -79,8 +76,8 @@ public class Promotion implements VisibleGridItem, Orderable, Comparable<Promoti
         return type;
     }
 
-    @JsonIgnore @Override public Bitmap getImageResource() {
-        return resource;
+    @JsonIgnore @Override public String getIconKey() {
+        return iconKey;
     }
 
     @Override public String getSku() {
@@ -107,10 +104,6 @@ public class Promotion implements VisibleGridItem, Orderable, Comparable<Promoti
         return endDate;
     }
 
-    public Bitmap getResource() {
-        return resource;
-    }
-
     public boolean appliesToBasket() {
         return appliesTo == PromotionApplicationType.BASKET;
     }
@@ -148,7 +141,7 @@ public class Promotion implements VisibleGridItem, Orderable, Comparable<Promoti
         if (endDate != null ? !endDate.equals(promotion.endDate) : promotion.endDate != null) return false;
         if (id != null ? !id.equals(promotion.id) : promotion.id != null) return false;
         if (productSku != null ? !productSku.equals(promotion.productSku) : promotion.productSku != null) return false;
-        if (resource != null ? !resource.equals(promotion.resource) : promotion.resource != null) return false;
+        if (iconKey != null ? !iconKey.equals(promotion.iconKey) : promotion.iconKey != null) return false;
         if (sku != null ? !sku.equals(promotion.sku) : promotion.sku != null) return false;
         if (startDate != null ? !startDate.equals(promotion.startDate) : promotion.startDate != null) return false;
         if (type != promotion.type) return false;
@@ -165,27 +158,27 @@ public class Promotion implements VisibleGridItem, Orderable, Comparable<Promoti
         result = 31 * result + (endDate != null ? endDate.hashCode() : 0);
         result = 31 * result + (amount != null ? amount.hashCode() : 0);
         result = 31 * result + (type != null ? type.hashCode() : 0);
-        result = 31 * result + (resource != null ? resource.hashCode() : 0);
+        result = 31 * result + (iconKey != null ? iconKey.hashCode() : 0);
         return result;
     }
 
     @Override public Money getPrice() {
-        return new Money(BigDecimal.ZERO);
+        return Money.ZERO;
     }
 
-    public BigDecimal discountFor(Product product) {
-        if (isPercentOff())
-            return this.getAmount().multiply(product.getPrice().getAmount(), new MathContext(4, RoundingMode.HALF_UP));
-        if (isAmountOff())
-            return this.getAmount();
-        return BigDecimal.ZERO;
+    public Money discountFor(Product product) {
+        return discountFrom(product.getPrice());
     }
 
-    public BigDecimal discountCart(BigDecimal total) {
-        if(isPercentOff())
-            return this.getAmount().multiply(total, new MathContext(4, RoundingMode.HALF_UP));
-        if(isAmountOff())
-            return this.getAmount();
-        return BigDecimal.ZERO;
+    public Money discountCart(Money total) {
+        return discountFrom(total);
+    }
+
+    private Money discountFrom(Money price) {
+        if (isPercentOff())
+            return price.percent(amount);
+        if (isAmountOff())
+            return new Money(amount);
+        return Money.ZERO;
     }
 }
@@ -3,7 +3,6 @@ package main.java.com.dlohaiti.dlokiosk.domain;
 import main.java.com.dlohaiti.dlokiosk.db.ConfigurationRepository;
 import com.google.inject.Inject;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -34,7 +33,7 @@ public class ReceiptFactory {
             lineItems.add(new LineItem(product.getSku(), product.getQuantity(), product.getPrice().times(product.getQuantity()), PRODUCT));
         }
         for (Promotion promotion : promotions) {
-            lineItems.add(new LineItem(promotion.getSku(), promotion.getQuantity(), new Money(BigDecimal.ZERO), PROMOTION));
+            lineItems.add(new LineItem(promotion.getSku(), promotion.getQuantity(), Money.ZERO, PROMOTION));
         }
         return lineItems;
     }
@@ -1,111 +1,43 @@
 package main.java.com.dlohaiti.dlokiosk.domain;
 
+import main.java.com.dlohaiti.dlokiosk.db.DatabaseException;
 import main.java.com.dlohaiti.dlokiosk.db.ReceiptsRepository;
 import com.google.inject.Inject;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
-
-import static main.java.com.dlohaiti.dlokiosk.db.ReceiptLineItemType.PRODUCT;
-import static main.java.com.dlohaiti.dlokiosk.db.ReceiptLineItemType.PROMOTION;
-
 public class Register {
 
     private final Clock clock;
     private final ReceiptsRepository repository;
+    private final PricingEngine pricingEngine;
 
     @Inject
-    public Register(Clock clock, ReceiptsRepository repository) {
+    public Register(Clock clock, ReceiptsRepository repository, PricingEngine pricingEngine) {
         this.clock = clock;
         this.repository = repository;
+        this.pricingEngine = pricingEngine;
     }
 
     public Receipt checkout(ShoppingCart cart) {
-        List<LineItem> lineItems = buildLineItemsFrom(cart);
-        int totalGallons = 0;
-        for(Product product : cart.getProducts()) {
-            totalGallons += product.getGallons() * product.getQuantity();
-        }
-        Receipt receipt = new Receipt(lineItems, clock.now(), totalGallons, new Money(cart.getTotal()));
-        repository.add(receipt);
-        return receipt;
+        return checkout(cart.getPricing());
     }
 
-    private List<LineItem> buildLineItemsFrom(ShoppingCart cart) {
-        List<LineItem> lineItems = new ArrayList<LineItem>();
-        for(Promotion promotion : cart.getPromotions()) {
-            lineItems.add(new LineItem(promotion.getSku(), promotion.getQuantity(), new Money(BigDecimal.ZERO), PROMOTION));
-        }
-        List<Promotion> promotionsCopy = new ArrayList<Promotion>(cart.getPromotions());
-        Collections.sort(promotionsCopy); // percentages and large amounts first
-        BigDecimal subtotal = cart.getSubtotal().getAmount();
-        List<Product> productsCopy = new ArrayList<Product>(cart.getProducts());
-
-        // deduct everything at the basket-level first
-        List<Discount> discounts = new ArrayList<Discount>();
-        for (Iterator<Promotion> it = promotionsCopy.iterator(); it.hasNext(); ) {
-            Promotion promo = it.next();
-            if(promo.appliesToBasket()) {
-                BigDecimal discount = promo.discountCart(subtotal);
-                subtotal = subtotal.subtract(discount);
-                BigDecimal discountPerItem = discount.divide(new BigDecimal(cart.getProducts().size()), 4, RoundingMode.HALF_UP);
-                for(Product p : productsCopy) {
-                    discounts.add(new Discount(p.getSku(), new Money(discountPerItem)));
-                }
-                it.remove();
-            }
-        }
-
-        for(Product product : productsCopy) {
-            for (Iterator<Promotion> it = promotionsCopy.iterator(); it.hasNext(); ) {
-                Promotion promo = it.next();
-                if(promo.isFor(product)) {
-                    discounts.add(new Discount(product.getSku(), new Money(promo.discountFor(product))));
-                    it.remove();
-                }
-            }
+    public Receipt checkout(Pricing pricing) {
+        Receipt receipt = new Receipt(pricing.getLineItems(), clock.now(), pricing.getTotalGallons(), pricing.getTotal());
+        if (!repository.add(receipt)) {
+            throw new DatabaseException("Could not save the receipt");
         }
-
-        for(Product product : productsCopy) {
-            Money actualPrice = retailPriceFor(product);
-            for (Iterator<Discount> it = discounts.iterator(); it.hasNext(); ) {
-                Discount discount = it.next();
-                if(discount.isFor(product)) {
-                    actualPrice = actualPrice.minus(discount.getAmount());
-                    it.remove();
-                }
-            }
-            lineItems.add(new LineItem(product.getSku(), product.getQuantity(), actualPrice, PRODUCT));
-        }
-
-        return lineItems;
+        return receipt;
     }
 
-    private Money retailPriceFor(Product product) {
-        return product.getPrice().times(product.getQuantity());
+    public Pricing price(CartSnapshot cart) {
+        return pricingEngine.price(cart.getProducts(), cart.getPromotions());
     }
 
     public Money subtotal(ShoppingCart cart) {
-        BigDecimal subtotal = BigDecimal.ZERO;
-        for(Product product : cart.getProducts()) {
-            subtotal = subtotal.add(retailPriceFor(product).getAmount());
-        }
-        return new Money(subtotal);
+        return cart.getSubtotal();
     }
 
     public Money total(ShoppingCart cart) {
-        List<LineItem> lineItems = buildLineItemsFrom(cart);
-        BigDecimal total = BigDecimal.ZERO;
-        for(LineItem item : lineItems) {
-            total = total.add(item.getPrice().getAmount());
-        }
-        if(total.compareTo(BigDecimal.ZERO) < 0) {
-            return new Money(BigDecimal.ZERO);
-        }
-        return new Money(total);
+        return cart.getPricing().getTotal();
     }
 }
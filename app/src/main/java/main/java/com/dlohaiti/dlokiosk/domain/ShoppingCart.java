@@ -1,33 +1,85 @@
 package main.java.com.dlohaiti.dlokiosk.domain;
 
 import com.google.inject.Inject;
-import com.google.inject.Singleton;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-
-@Singleton
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds one line per SKU and price, so adding a product that is already in the cart raises the
+ * quantity of its line instead of adding another entry. Lines are kept between the product's minimum
+ * and maximum quantity, and {@link #addProduct(Product)} reports when a line could not take the whole
+ * quantity because it reached the maximum. Keeps the
+ * subtotal, gallons and per-SKU quantities up to date as lines change, and prices the cart at most
+ * once per change: the {@link Pricing} is kept until the cart changes again and is reused at checkout.
+ * <p/>
+ * A cart belongs to one {@link CartSessions} session and may only be used on the thread that created
+ * it. That thread takes a {@link #snapshot()} or {@link #getPricing()} and hands the resulting value to
+ * other threads, which never touch the cart itself.
+ */
 public class ShoppingCart {
-    private final List<main.java.com.dlohaiti.dlokiosk.domain.Product> products = new ArrayList<Product>();
+    private final List<Product> products = new ArrayList<Product>();
     private final List<Promotion> promotions = new ArrayList<Promotion>();
+    private final Map<String, Integer> quantities = new HashMap<String, Integer>();
     private final Register register;
+    private final Thread owner = Thread.currentThread();
+    private long subtotal = 0;
+    private int totalGallons = 0;
+    private CartSnapshot snapshot;
+    private Pricing pricing;
 
     @Inject
     public ShoppingCart(Register register) {
         this.register = register;
     }
 
-    public void addProduct(Product product) {
-        products.add(product);
+    /**
+     * @return false if the line reached the product's maximum quantity and only part of the
+     * product's quantity, or none of it, was added
+     */
+    public boolean addProduct(Product product) {
+        checkOwner();
+        for (int i = 0; i < products.size(); i++) {
+            Product line = products.get(i);
+            if (line.isSameLineAs(product)) {
+                Product merged = line.withAddedQuantity(product.getQuantity());
+                products.set(i, merged);
+                int added = merged.getQuantity() - line.getQuantity();
+                count(product, added);
+                return added == product.getQuantity();
+            }
+        }
+        Product line = product.withinQuantityLimits();
+        products.add(line);
+        count(line, line.getQuantity());
+        return line.getQuantity() >= product.getQuantity();
     }
 
+    /**
+     * Takes one unit off the line at the given position. The line goes once it would drop below one
+     * unit or below the product's minimum quantity.
+     */
     public void removeProduct(int position) {
-        products.remove(position);
+        checkOwner();
+        Product line = products.get(position);
+        int remaining = line.getQuantity() - 1;
+        Integer minimum = line.getMinimumQuantity();
+        if (remaining < 1 || (minimum != null && remaining < minimum)) {
+            products.remove(position);
+            count(line, -line.getQuantity());
+        } else {
+            products.set(position, line.withQuantity(remaining));
+            count(line, -1);
+        }
     }
 
     public List<Product> getProducts() {
-        return products;
+        return Collections.unmodifiableList(products);
     }
 
     public void checkout() {
@@ -36,8 +88,13 @@ public class ShoppingCart {
     }
 
     public void clear() {
+        checkOwner();
         products.clear();
         promotions.clear();
+        quantities.clear();
+        subtotal = 0;
+        totalGallons = 0;
+        changed();
     }
 
     public boolean isEmpty() {
@@ -45,19 +102,52 @@ public class ShoppingCart {
     }
 
     public List<Promotion> getPromotions() {
-        return promotions;
+        return Collections.unmodifiableList(promotions);
     }
 
     public void addPromotion(Promotion promotion) {
+        checkOwner();
         promotions.add(promotion);
+        changed();
     }
 
     public void removePromotion(Promotion promotion) {
+        checkOwner();
         promotions.remove(promotion);
+        changed();
     }
 
     public Money getSubtotal() {
-        return register.subtotal(this);
+        return Money.centimes(subtotal);
+    }
+
+    public int getTotalGallons() {
+        return totalGallons;
+    }
+
+    public Set<String> getSkus() {
+        return Collections.unmodifiableSet(quantities.keySet());
+    }
+
+    public int getQuantity(String sku) {
+        Integer quantity = quantities.get(sku);
+        return quantity == null ? 0 : quantity;
+    }
+
+    public CartSnapshot snapshot() {
+        checkOwner();
+        if (snapshot == null) {
+            snapshot = new CartSnapshot(products, promotions, getSubtotal(), totalGallons);
+        }
+        return snapshot;
+    }
+
+    public Pricing getPricing() {
+        checkOwner();
+        if (pricing == null) {
+            pricing = register.price(snapshot());
+        }
+        return pricing;
     }
 
     public String getCurrencyCode() {
@@ -71,14 +161,41 @@ public class ShoppingCart {
     }
 
     public BigDecimal getTotal() {
-        return register.total(this).getAmount();
+        return getPricing().getTotal().getAmount();
     }
 
     public void removePromotion(int id) {
+        checkOwner();
         promotions.remove(id);
+        changed();
     }
 
     public void clearPromotions() {
+        checkOwner();
         promotions.clear();
+        changed();
+    }
+
+    private void count(Product product, int quantity) {
+        subtotal += product.getPrice().times(quantity).getCentimes();
+        totalGallons += product.getGallons() * quantity;
+        int remaining = getQuantity(product.getSku()) + quantity;
+        if (remaining == 0) {
+            quantities.remove(product.getSku());
+        } else {
+            quantities.put(product.getSku(), remaining);
+        }
+        changed();
+    }
+
+    private void changed() {
+        snapshot = null;
+        pricing = null;
+    }
+
+    private void checkOwner() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("A shopping cart can only be used on the thread that created it.");
+        }
     }
 }
@@ -0,0 +1,51 @@
+package test.java.com.dlohaiti.dlokiosk;
+
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+import main.java.com.dlohaiti.dlokiosk.CartLineAdapter;
+import main.java.com.dlohaiti.dlokiosk.IconLoader;
+import main.java.com.dlohaiti.dlokiosk.domain.Product;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static test.java.com.dlohaiti.dlokiosk.domain.ProductBuilder.productBuilder;
+
+@RunWith(RobolectricTestRunner.class)
+public class CartLineAdapterTest {
+    IconLoader iconLoader = mock(IconLoader.class);
+
+    @Test
+    public void shouldShowEachLineWithItsQuantity() {
+        Product line = productBuilder().withSku("ABC").withIconKey("abc").withQuantity(3).build();
+        CartLineAdapter adapter = new CartLineAdapter(Robolectric.application, asList(line), iconLoader);
+
+        ViewGroup cell = (ViewGroup) adapter.getView(0, null, null);
+
+        assertThat(((TextView) cell.getChildAt(1)).getText().toString(), is("3"));
+        verify(iconLoader).loadInto(any(ImageView.class), eq("abc"));
+    }
+
+    @Test
+    public void shouldUpdateTheQuantityOfARecycledCell() {
+        Product three = productBuilder().withQuantity(3).build();
+        Product one = productBuilder().withQuantity(1).build();
+        CartLineAdapter adapter = new CartLineAdapter(Robolectric.application, asList(three, one), iconLoader);
+
+        ViewGroup cell = (ViewGroup) adapter.getView(0, null, null);
+        ViewGroup recycled = (ViewGroup) adapter.getView(1, cell, null);
+
+        assertThat(recycled, is(sameInstance(cell)));
+        assertThat(((TextView) recycled.getChildAt(1)).getText().toString(), is("1"));
+    }
+}
@@ -0,0 +1,84 @@
+package test.java.com.dlohaiti.dlokiosk;
+
+import android.content.Context;
+import android.util.Log;
+import main.java.com.dlohaiti.dlokiosk.Base64ImageConverter;
+import main.java.com.dlohaiti.dlokiosk.ConfigurationImport;
+import main.java.com.dlohaiti.dlokiosk.IconCache;
+import main.java.com.dlohaiti.dlokiosk.IconStore;
+import main.java.com.dlohaiti.dlokiosk.KioskDate;
+import main.java.com.dlohaiti.dlokiosk.client.ConfigurationClient;
+import main.java.com.dlohaiti.dlokiosk.client.ConfigurationHandler;
+import main.java.com.dlohaiti.dlokiosk.client.MoneyJson;
+import main.java.com.dlohaiti.dlokiosk.client.ProductJson;
+import main.java.com.dlohaiti.dlokiosk.db.*;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLog;
+
+import java.math.BigDecimal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Ignore("Timing run, not part of the unit tests")
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowLruCache.class)
+public class ConfigurationImportBenchmark {
+    private static final String TAG = ConfigurationImportBenchmark.class.getSimpleName();
+    Context context = Robolectric.application.getApplicationContext();
+    KioskDatabase db = new KioskDatabase(context);
+    ConfigurationClient client = mock(ConfigurationClient.class);
+    ConfigurationRepository configurationRepository = new ConfigurationRepository(db);
+    ConfigurationImport configurationImport;
+
+    @Before
+    public void setUp() {
+        ShadowLog.stream = System.out;
+        IconStore iconStore = new IconStore(context);
+        configurationImport = new ConfigurationImport(db, client, new ProductRepository(context, db),
+                new PromotionRepository(context, db),
+                new SamplingSiteParametersRepository(db, new SamplingSiteRepository(db)),
+                new DeliveryAgentRepository(db), configurationRepository, new KioskDate(),
+                new Base64ImageConverter(), iconStore, new IconCache(iconStore, 1024));
+    }
+
+    @Test
+    public void importFiveHundredProducts() {
+        when(client.fetch(anyString(), any(ConfigurationHandler.class))).thenAnswer(new Answer<Boolean>() {
+            @Override public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ConfigurationHandler handler = (ConfigurationHandler) invocation.getArguments()[1];
+                handler.onStart(false, "\"v1\"");
+                for (int i = 0; i < 500; i++) {
+                    handler.onProduct(productJson("SKU" + i));
+                }
+                return true;
+            }
+        });
+        configurationRepository.get(ConfigurationKey.CONFIGURATION_ETAG); // open and migrate the database before timing
+
+        long start = System.nanoTime();
+        configurationImport.run();
+        Log.i(TAG, String.format("Imported 500 products in %d ms", (System.nanoTime() - start) / 1000000));
+    }
+
+    private ProductJson productJson(String sku) {
+        MoneyJson money = new MoneyJson();
+        money.setAmount(BigDecimal.TEN);
+        money.setCurrencyCode("HTG");
+        ProductJson product = new ProductJson();
+        product.setSku(sku);
+        product.setPrice(money);
+        product.setGallons(2);
+        return product;
+    }
+}
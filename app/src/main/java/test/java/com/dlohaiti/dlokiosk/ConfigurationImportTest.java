@@ -0,0 +1,307 @@
+package test.java.com.dlohaiti.dlokiosk;
+
+import android.content.Context;
+import main.java.com.dlohaiti.dlokiosk.Base64ImageConverter;
+import main.java.com.dlohaiti.dlokiosk.ConfigurationImport;
+import main.java.com.dlohaiti.dlokiosk.IconCache;
+import main.java.com.dlohaiti.dlokiosk.IconStore;
+import main.java.com.dlohaiti.dlokiosk.KioskDate;
+import main.java.com.dlohaiti.dlokiosk.client.ConfigurationClient;
+import main.java.com.dlohaiti.dlokiosk.client.ConfigurationHandler;
+import main.java.com.dlohaiti.dlokiosk.client.DeliveryAgentJson;
+import main.java.com.dlohaiti.dlokiosk.client.MoneyJson;
+import main.java.com.dlohaiti.dlokiosk.client.ProductJson;
+import main.java.com.dlohaiti.dlokiosk.db.*;
+import main.java.com.dlohaiti.dlokiosk.domain.DeliveryAgent;
+import main.java.com.dlohaiti.dlokiosk.domain.Money;
+import main.java.com.dlohaiti.dlokiosk.domain.Product;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.springframework.util.support.Base64;
+import org.springframework.web.client.RestClientException;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowLruCache.class)
+public class ConfigurationImportTest {
+    Context context = Robolectric.application.getApplicationContext();
+    KioskDatabase db = new KioskDatabase(context);
+    ConfigurationClient client = mock(ConfigurationClient.class);
+    ProductRepository productRepository = new ProductRepository(context, db);
+    DeliveryAgentRepository deliveryAgentRepository = new DeliveryAgentRepository(db);
+    ConfigurationRepository configurationRepository = new ConfigurationRepository(db);
+    IconStore iconStore = new IconStore(context);
+    ConfigurationImport configurationImport;
+
+    @Before
+    public void setUp() {
+        configurationImport = configurationImport(db);
+        productRepository.replaceAll(asList(product("OLD", "1.00"), product("2GAL", "1.00")));
+        deliveryAgentRepository.replaceAll(asList(new DeliveryAgent("Jean"), new DeliveryAgent("Marie")));
+    }
+
+    @Test
+    public void shouldReplaceTheCatalogueWithAFullConfiguration() {
+        when(client.fetch(eq(""), any(ConfigurationHandler.class))).thenAnswer(new Answer<Boolean>() {
+            @Override public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ConfigurationHandler handler = (ConfigurationHandler) invocation.getArguments()[1];
+                handler.onStart(false, "\"v1\"");
+                handler.onProduct(productJson("2GAL", "10"));
+                handler.onProduct(productJson("5GAL", "15"));
+                handler.onDeliveryAgent(agentJson("Jean"));
+                return true;
+            }
+        });
+
+        assertThat(configurationImport.run(), is(true));
+
+        List<Product> products = productRepository.list();
+        assertThat(products.size(), is(2));
+        assertThat(products.get(0).getSku(), is("2GAL"));
+        assertThat(products.get(1).getSku(), is("5GAL"));
+        assertThat(deliveryAgentRepository.findAll().size(), is(1));
+        assertThat(configurationRepository.get(ConfigurationKey.CONFIGURATION_ETAG), is("\"v1\""));
+    }
+
+    @Test
+    public void shouldOnlyTouchTheItemsInADelta() {
+        configurationRepository.save(ConfigurationKey.CONFIGURATION_ETAG, "\"v1\"");
+        when(client.fetch(eq("\"v1\""), any(ConfigurationHandler.class))).thenAnswer(new Answer<Boolean>() {
+            @Override public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ConfigurationHandler handler = (ConfigurationHandler) invocation.getArguments()[1];
+                handler.onStart(true, "\"v2\"");
+                handler.onProduct(productJson("2GAL", "12"));
+                handler.onProduct(productJson("5GAL", "15"));
+                handler.onProductRemoved("OLD");
+                handler.onDeliveryAgentRemoved("Marie");
+                return true;
+            }
+        });
+
+        assertThat(configurationImport.run(), is(true));
+
+        List<Product> products = productRepository.list();
+        assertThat(products.size(), is(2));
+        assertThat(products.get(0).getSku(), is("2GAL"));
+        assertThat(products.get(0).getPrice(), is(new Money(new BigDecimal("12"))));
+        assertThat(products.get(1).getSku(), is("5GAL"));
+        assertThat(deliveryAgentRepository.findAll().size(), is(1));
+        assertThat(configurationRepository.get(ConfigurationKey.CONFIGURATION_ETAG), is("\"v2\""));
+    }
+
+    @Test
+    public void shouldDownloadBeforeOpeningTheTransaction() {
+        final List<Boolean> downloadedInTransaction = new ArrayList<Boolean>();
+        when(client.fetch(eq(""), any(ConfigurationHandler.class))).thenAnswer(new Answer<Boolean>() {
+            @Override public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ConfigurationHandler handler = (ConfigurationHandler) invocation.getArguments()[1];
+                handler.onStart(false, "\"v1\"");
+                handler.onProduct(productJson("5GAL", "15"));
+                downloadedInTransaction.add(db.getWritableDatabase().inTransaction());
+                return true;
+            }
+        });
+
+        assertThat(configurationImport.run(), is(true));
+
+        assertThat(downloadedInTransaction, is(asList(false)));
+        assertThat(productRepository.list().size(), is(1));
+    }
+
+    @Test
+    public void shouldLeaveNoNewIconsWhenTheImportRollsBack() {
+        KioskDatabase failingDb = spy(db);
+        doReturn(false).when(failingDb).inTransaction(any(UnitOfWork.class));
+        Set<String> iconsBefore = icons();
+        when(client.fetch(eq(""), any(ConfigurationHandler.class))).thenAnswer(new Answer<Boolean>() {
+            @Override public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ConfigurationHandler handler = (ConfigurationHandler) invocation.getArguments()[1];
+                handler.onStart(false, "\"v1\"");
+                ProductJson product = productJson("5GAL", "15");
+                product.setBase64EncodedImage(Base64.encodeBytes(new byte[]{4, 5, 6}));
+                handler.onProduct(product);
+                return true;
+            }
+        });
+
+        assertThat(configurationImport(failingDb).run(), is(false));
+
+        assertThat(productRepository.list().size(), is(2));
+        assertThat(icons(), is(iconsBefore));
+    }
+
+    @Test
+    public void shouldNotSweepIconsWhenTheImportRollsBack() {
+        String unreferenced = iconStore.save(new byte[]{10, 11, 12});
+        KioskDatabase failingDb = spy(db);
+        doReturn(false).when(failingDb).inTransaction(any(UnitOfWork.class));
+        when(client.fetch(eq(""), any(ConfigurationHandler.class))).thenAnswer(fullConfigurationWithAnIcon());
+
+        assertThat(configurationImport(failingDb).run(), is(false));
+
+        assertThat(iconStore.contains(unreferenced), is(true));
+    }
+
+    @Test
+    public void shouldSweepIconsNoLongerReferencedOnceTheImportCommits() {
+        String unreferenced = iconStore.save(new byte[]{10, 11, 12});
+        when(client.fetch(eq(""), any(ConfigurationHandler.class))).thenAnswer(fullConfigurationWithAnIcon());
+
+        assertThat(configurationImport.run(), is(true));
+
+        assertThat(iconStore.contains(unreferenced), is(false));
+        assertThat(iconStore.contains(productRepository.list().get(0).getIconKey()), is(true));
+    }
+
+    @Test
+    public void shouldSkipTheIconSweepWhenTheReferencedIconsCannotBeRead() {
+        String unreferenced = iconStore.save(new byte[]{10, 11, 12});
+        ProductRepository failingProducts = spy(productRepository);
+        doThrow(new DatabaseException("disk I/O error")).when(failingProducts).findIconKeys();
+        when(client.fetch(eq(""), any(ConfigurationHandler.class))).thenAnswer(fullConfigurationWithAnIcon());
+
+        assertThat(configurationImport(db, failingProducts).run(), is(true));
+
+        assertThat(iconStore.contains(unreferenced), is(true));
+        assertThat(iconStore.contains(productRepository.list().get(0).getIconKey()), is(true));
+    }
+
+    @Test
+    public void shouldLeaveNoNewIconsWhenTheDownloadFails() {
+        Set<String> iconsBefore = icons();
+        when(client.fetch(eq(""), any(ConfigurationHandler.class))).thenAnswer(new Answer<Boolean>() {
+            @Override public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ConfigurationHandler handler = (ConfigurationHandler) invocation.getArguments()[1];
+                handler.onStart(false, "\"v1\"");
+                ProductJson product = productJson("5GAL", "15");
+                product.setBase64EncodedImage(Base64.encodeBytes(new byte[]{7, 8, 9}));
+                handler.onProduct(product);
+                throw new RestClientException("Connection reset");
+            }
+        });
+
+        try {
+            configurationImport.run();
+            fail("Expected the failed download to be rethrown");
+        } catch (RestClientException expected) {
+            assertThat(productRepository.list().size(), is(2));
+            assertThat(icons(), is(iconsBefore));
+        }
+    }
+
+    @Test
+    public void shouldLeaveEverythingAloneWhenNotModified() {
+        configurationRepository.save(ConfigurationKey.CONFIGURATION_ETAG, "\"v1\"");
+        when(client.fetch(anyString(), any(ConfigurationHandler.class))).thenReturn(false);
+
+        assertThat(configurationImport.run(), is(true));
+
+        assertThat(productRepository.list().size(), is(2));
+        assertThat(configurationRepository.get(ConfigurationKey.CONFIGURATION_ETAG), is("\"v1\""));
+    }
+
+    @Test
+    public void shouldCommitAFullConfigurationOfFiveHundredProductsInOneUnitOfWork() {
+        when(client.fetch(eq(""), any(ConfigurationHandler.class))).thenAnswer(new Answer<Boolean>() {
+            @Override public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ConfigurationHandler handler = (ConfigurationHandler) invocation.getArguments()[1];
+                handler.onStart(false, "\"v1\"");
+                for (int i = 0; i < 500; i++) {
+                    handler.onProduct(productJson("SKU" + i, "10"));
+                }
+                return true;
+            }
+        });
+
+        KioskDatabase countingDb = spy(db);
+        ProductRepository products = spy(productRepository);
+
+        assertThat(configurationImport(countingDb, products).run(), is(true));
+
+        verify(countingDb, times(1)).inTransaction(any(UnitOfWork.class));
+        verify(products, times(500)).add(any(Transaction.class), any(Product.class));
+        verify(products, never()).add(any(Product.class));
+        assertThat(productRepository.list().size(), is(500));
+        assertThat(configurationRepository.get(ConfigurationKey.CONFIGURATION_ETAG), is("\"v1\""));
+    }
+
+    private Answer<Boolean> fullConfigurationWithAnIcon() {
+        return new Answer<Boolean>() {
+            @Override public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ConfigurationHandler handler = (ConfigurationHandler) invocation.getArguments()[1];
+                handler.onStart(false, "\"v1\"");
+                ProductJson product = productJson("5GAL", "15");
+                product.setBase64EncodedImage(Base64.encodeBytes(new byte[]{1, 2, 3}));
+                handler.onProduct(product);
+                return true;
+            }
+        };
+    }
+
+    private ConfigurationImport configurationImport(KioskDatabase db) {
+        return configurationImport(db, productRepository);
+    }
+
+    private ConfigurationImport configurationImport(KioskDatabase db, ProductRepository productRepository) {
+        return new ConfigurationImport(db, client, productRepository,
+                new PromotionRepository(context, db),
+                new SamplingSiteParametersRepository(db, new SamplingSiteRepository(db)),
+                deliveryAgentRepository, configurationRepository, new KioskDate(),
+                new Base64ImageConverter(), iconStore, new IconCache(iconStore, 1024));
+    }
+
+    private Set<String> icons() {
+        String[] names = new File(context.getFilesDir(), "icons").list();
+        return names == null ? new HashSet<String>() : new HashSet<String>(asList(names));
+    }
+
+    private Product product(String sku, String price) {
+        return new Product(null, sku, null, false, 1, null, null, new Money(new BigDecimal(price)), sku, 1);
+    }
+
+    private ProductJson productJson(String sku, String price) {
+        MoneyJson money = new MoneyJson();
+        money.setAmount(new BigDecimal(price));
+        money.setCurrencyCode("HTG");
+        ProductJson product = new ProductJson();
+        product.setSku(sku);
+        product.setPrice(money);
+        product.setGallons(2);
+        return product;
+    }
+
+    private DeliveryAgentJson agentJson(String name) {
+        DeliveryAgentJson agent = new DeliveryAgentJson();
+        agent.setName(name);
+        return agent;
+    }
+}
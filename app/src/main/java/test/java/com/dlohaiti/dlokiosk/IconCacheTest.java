@@ -0,0 +1,68 @@
+package test.java.com.dlohaiti.dlokiosk;
+
+import android.graphics.Bitmap;
+import main.java.com.dlohaiti.dlokiosk.IconCache;
+import main.java.com.dlohaiti.dlokiosk.IconStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowLruCache.class)
+public class IconCacheTest {
+    IconStore iconStore = mock(IconStore.class);
+    Bitmap icon = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+
+    @Before
+    public void setUp() {
+        when(iconStore.load("first")).thenReturn(icon);
+        when(iconStore.load("second")).thenReturn(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void shouldDecodeEachIconOnlyOnce() {
+        IconCache cache = new IconCache(iconStore);
+
+        Bitmap first = cache.load("first");
+        Bitmap second = cache.load("first");
+
+        assertThat(second, is(sameInstance(first)));
+        verify(iconStore, times(1)).load("first");
+        assertThat(cache.missCount(), is(1));
+        assertThat(cache.hitCount(), is(1));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedIconsWhenOverBudget() {
+        IconCache cache = new IconCache(iconStore, icon.getByteCount());
+
+        cache.load("first");
+        cache.load("second");
+        cache.load("first");
+
+        assertThat(cache.evictionCount(), is(2));
+        assertThat(cache.missCount(), is(3));
+        verify(iconStore, times(2)).load("first");
+    }
+
+    @Test
+    public void shouldReloadIconsAfterTheCatalogueIsReplaced() {
+        IconCache cache = new IconCache(iconStore);
+        cache.load("first");
+
+        cache.evictAll();
+        cache.load("first");
+
+        verify(iconStore, times(2)).load("first");
+    }
+}
@@ -0,0 +1,90 @@
+package test.java.com.dlohaiti.dlokiosk;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Handler;
+import android.widget.ImageView;
+import main.java.com.dlohaiti.dlokiosk.IconCache;
+import main.java.com.dlohaiti.dlokiosk.IconLoader;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class IconLoaderTest {
+    IconCache iconCache = mock(IconCache.class);
+    QueuedExecutor executor = new QueuedExecutor();
+    IconLoader loader = new IconLoader(iconCache, executor, new Handler());
+    ImageView imageView = new ImageView(Robolectric.application);
+    Bitmap first = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+    Bitmap second = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+
+    @Before
+    public void setUp() {
+        when(iconCache.decode("first")).thenReturn(first);
+        when(iconCache.decode("second")).thenReturn(second);
+    }
+
+    @Test
+    public void shouldShowCachedIconsImmediately() {
+        when(iconCache.get("first")).thenReturn(first);
+
+        loader.loadInto(imageView, "first");
+
+        assertThat(executor.tasks.size(), is(0));
+        assertThat(shownBitmap(), is(sameInstance(first)));
+    }
+
+    @Test
+    public void shouldDecodeOffTheCallingThread() {
+        loader.loadInto(imageView, "first");
+
+        verify(iconCache, never()).decode("first");
+        executor.runAll();
+        assertThat(shownBitmap(), is(sameInstance(first)));
+    }
+
+    @Test
+    public void shouldIgnoreStaleResultsWhenAViewIsRecycled() {
+        loader.loadInto(imageView, "first");
+        loader.loadInto(imageView, "second");
+
+        executor.runAll();
+
+        verify(iconCache, never()).decode("first");
+        assertThat(shownBitmap(), is(sameInstance(second)));
+    }
+
+    private Bitmap shownBitmap() {
+        return ((BitmapDrawable) imageView.getDrawable()).getBitmap();
+    }
+
+    private static class QueuedExecutor implements Executor {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package test.java.com.dlohaiti.dlokiosk;
+
+import main.java.com.dlohaiti.dlokiosk.IconStore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class IconStoreTest {
+    IconStore iconStore = new IconStore(Robolectric.application.getApplicationContext());
+
+    @Test
+    public void shouldStoreIdenticalIconsUnderTheSameKey() {
+        String first = iconStore.save(new byte[]{1, 2, 3});
+        String second = iconStore.save(new byte[]{1, 2, 3});
+
+        assertThat(first, is(second));
+        assertThat(iconStore.save(new byte[]{3, 2, 1}), is(not(first)));
+        assertTrue(iconStore.contains(first));
+    }
+
+    @Test
+    public void shouldNotStoreMissingIcons() {
+        assertNull(iconStore.save(null));
+        assertNull(iconStore.save(new byte[0]));
+    }
+
+    @Test
+    public void shouldFallBackToTheUnknownIconWhenNothingIsStored() {
+        assertNotNull(iconStore.load(null));
+        assertNotNull(iconStore.load("missing"));
+    }
+
+    @Test
+    public void shouldSampleLargeImagesDownWithoutGoingBelowTheCellSize() {
+        assertThat(IconStore.sampleSizeFor(144, 144, 144), is(1));
+        assertThat(IconStore.sampleSizeFor(300, 300, 144), is(2));
+        assertThat(IconStore.sampleSizeFor(4000, 3000, 144), is(16));
+        assertThat(IconStore.sampleSizeFor(4000, 200, 144), is(1));
+    }
+
+    @Test
+    public void shouldDeleteIconsThatAreNoLongerReferenced() {
+        String kept = iconStore.save(new byte[]{1});
+        String dropped = iconStore.save(new byte[]{2});
+
+        iconStore.retainOnly(Collections.singleton(kept));
+
+        assertTrue(iconStore.contains(kept));
+        assertFalse(iconStore.contains(dropped));
+    }
+
+    @Test
+    public void shouldLeaveIconsBeingSavedAloneWhenRetaining() throws IOException {
+        File saving = new File(new File(Robolectric.application.getFilesDir(), "icons"), "abc.tmp");
+        assertTrue(saving.getParentFile().mkdirs() || saving.getParentFile().isDirectory());
+        assertTrue(saving.createNewFile());
+
+        iconStore.retainOnly(Collections.<String>emptySet());
+
+        assertTrue(saving.exists());
+    }
+}
@@ -0,0 +1,72 @@
+package test.java.com.dlohaiti.dlokiosk.client;
+
+import main.java.com.dlohaiti.dlokiosk.KioskDate;
+import main.java.com.dlohaiti.dlokiosk.client.ConfigurationClient;
+import main.java.com.dlohaiti.dlokiosk.client.ConfigurationHandler;
+import main.java.com.dlohaiti.dlokiosk.client.ConfigurationReader;
+import main.java.com.dlohaiti.dlokiosk.client.ProductJson;
+import main.java.com.dlohaiti.dlokiosk.client.RestClient;
+import main.java.com.dlohaiti.dlokiosk.db.ConfigurationKey;
+import main.java.com.dlohaiti.dlokiosk.db.ConfigurationRepository;
+import org.apache.http.message.BasicHeader;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConfigurationClientTest {
+    StubServer server;
+    ConfigurationClient client;
+    ConfigurationHandler handler = mock(ConfigurationHandler.class);
+
+    @Before
+    public void setUp() {
+        server = new StubServer();
+        ConfigurationRepository config = mock(ConfigurationRepository.class);
+        when(config.get(ConfigurationKey.SERVER_URL)).thenReturn(StubServer.URL);
+        client = new ConfigurationClient(new RestClient(config, new KioskDate()), new ConfigurationReader());
+    }
+
+    @Test
+    public void shouldAskForTheWholeConfigurationWithoutAStoredVersion() {
+        server.respondToGet(200, "{\"products\": [{\"sku\": \"2GAL\"}]}", new BasicHeader("ETag", "\"v1\""));
+
+        assertThat(client.fetch("", handler), is(true));
+
+        assertNull(server.getLastRequest().getFirstHeader("If-None-Match"));
+        verify(handler).onStart(false, "\"v1\"");
+        verify(handler).onProduct(any(ProductJson.class));
+    }
+
+    @Test
+    public void shouldSkipTheHandlerWhenNotModified() {
+        server.respondToGet(304, "");
+
+        assertThat(client.fetch("\"v1\"", handler), is(false));
+
+        assertThat(server.getLastRequest().getFirstHeader("If-None-Match").getValue(), is("\"v1\""));
+        verify(handler, never()).onStart(anyBoolean(), anyString());
+    }
+
+    @Test
+    public void shouldTreatImUsedAsADelta() {
+        server.respondToGet(226, "{\"removed\": {\"products\": [\"5GAL\"]}}", new BasicHeader("ETag", "\"v2\""));
+
+        assertThat(client.fetch("\"v1\"", handler), is(true));
+
+        verify(handler).onStart(true, "\"v2\"");
+        verify(handler).onProductRemoved("5GAL");
+    }
+}
@@ -0,0 +1,93 @@
+package test.java.com.dlohaiti.dlokiosk.client;
+
+import main.java.com.dlohaiti.dlokiosk.client.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ConfigurationReaderTest {
+    ConfigurationReader reader = new ConfigurationReader();
+    RecordingHandler handler = new RecordingHandler();
+
+    @Test public void shouldEmitEachItemInPayloadOrder() throws IOException {
+        read("{'delivery': {'agents': [{'name': 'Jean'}], 'configuration': {'minimum': 1, 'maximum': 9, 'default': 4}}," +
+                "'products': [{'sku': '2GAL', 'price': {'amount': 10}, 'base64EncodedImage': 'AAAA', 'unknown': [1, {'a': 2}]}, {'sku': '5GAL'}]," +
+                "'extra': {'ignored': true}," +
+                "'parameters': [{'name': 'pH', 'samplingSites': [{'name': 'Tap'}]}]," +
+                "'promotions': [{'sku': 'PROMO10', 'amount': 10}]}");
+
+        assertThat(handler.events, is(asList(
+                "agent Jean", "delivery 1-9-4",
+                "product 2GAL", "product 5GAL",
+                "parameter pH at 1 sites",
+                "promotion PROMO10")));
+    }
+
+    @Test public void shouldSkipMissingAndNullSections() throws IOException {
+        read("{'products': null, 'promotions': [], 'delivery': {'agents': null}}");
+
+        assertThat(handler.events.isEmpty(), is(true));
+    }
+
+    @Test public void shouldEmitTheKeysOfRemovedItems() throws IOException {
+        read("{'products': [{'sku': '2GAL'}], 'removed': {'products': ['5GAL'], 'promotions': ['PROMO10'], 'parameters': ['pH'], 'agents': ['Jean'], 'unknown': ['x']}}");
+
+        assertThat(handler.events, is(asList(
+                "product 2GAL",
+                "removed product 5GAL", "removed promotion PROMO10", "removed parameter pH", "removed agent Jean")));
+    }
+
+    private void read(String json) throws IOException {
+        reader.read(new ByteArrayInputStream(json.replace('\'', '"').getBytes("UTF-8")), handler);
+    }
+
+    private static class RecordingHandler implements ConfigurationHandler {
+        final List<String> events = new ArrayList<String>();
+
+        @Override public void onStart(boolean delta, String etag) {
+        }
+
+        @Override public void onProduct(ProductJson product) {
+            events.add("product " + product.getSku());
+        }
+
+        @Override public void onPromotion(PromotionJson promotion) {
+            events.add("promotion " + promotion.getSku());
+        }
+
+        @Override public void onParameter(ParameterJson parameter) {
+            events.add("parameter " + parameter.getName() + " at " + parameter.getSamplingSites().size() + " sites");
+        }
+
+        @Override public void onDeliveryAgent(DeliveryAgentJson agent) {
+            events.add("agent " + agent.getName());
+        }
+
+        @Override public void onDeliveryConfiguration(DeliveryConfigurationJson configuration) {
+            events.add("delivery " + configuration.getMinimum() + "-" + configuration.getMaximum() + "-" + configuration.getDefault());
+        }
+
+        @Override public void onProductRemoved(String sku) {
+            events.add("removed product " + sku);
+        }
+
+        @Override public void onPromotionRemoved(String sku) {
+            events.add("removed promotion " + sku);
+        }
+
+        @Override public void onParameterRemoved(String name) {
+            events.add("removed parameter " + name);
+        }
+
+        @Override public void onDeliveryAgentRemoved(String name) {
+            events.add("removed agent " + name);
+        }
+    }
+}
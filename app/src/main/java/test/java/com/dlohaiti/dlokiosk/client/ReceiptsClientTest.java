@@ -0,0 +1,112 @@
+package test.java.com.dlohaiti.dlokiosk.client;
+
+import main.java.com.dlohaiti.dlokiosk.KioskDate;
+import main.java.com.dlohaiti.dlokiosk.client.PostResponse;
+import main.java.com.dlohaiti.dlokiosk.client.ReceiptsClient;
+import main.java.com.dlohaiti.dlokiosk.client.RestClient;
+import main.java.com.dlohaiti.dlokiosk.db.ConfigurationKey;
+import main.java.com.dlohaiti.dlokiosk.db.ConfigurationRepository;
+import main.java.com.dlohaiti.dlokiosk.db.ReceiptLineItemType;
+import main.java.com.dlohaiti.dlokiosk.domain.LineItem;
+import main.java.com.dlohaiti.dlokiosk.domain.Money;
+import main.java.com.dlohaiti.dlokiosk.domain.Receipt;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReceiptsClientTest {
+    StubServer server;
+    ConfigurationRepository config;
+    RestClient restClient;
+    ReceiptsClient client;
+
+    @Before
+    public void setUp() {
+        server = new StubServer();
+        config = mock(ConfigurationRepository.class);
+        when(config.get(ConfigurationKey.SERVER_URL)).thenReturn(StubServer.URL);
+        when(config.get(ConfigurationKey.KIOSK_ID)).thenReturn("kiosk01");
+        when(config.get(ConfigurationKey.KIOSK_PASSWORD)).thenReturn("pw");
+        restClient = new RestClient(config, new KioskDate());
+        client = new ReceiptsClient(restClient);
+    }
+
+    @Test
+    public void shouldSendOneRequestPerBatchInsteadOfOnePerReceipt() {
+        int[] backlogs = {1, 50, 51, 120};
+        int[] expectedRequests = {1, 1, 2, 3};
+        int sent = 0;
+        for (int i = 0; i < backlogs.length; i++) {
+            PostResponse response = client.send(receipts(backlogs[i]), 50);
+
+            sent += expectedRequests[i];
+            assertThat(server.getRequests().size(), is(sent));
+            assertThat(response.getResults().size(), is(backlogs[i]));
+        }
+        assertThat(server.getRequests().get(0), is("POST /receipts/batch"));
+    }
+
+    @Test
+    public void shouldReportResultsForEachReceipt() {
+        server.rejectItem(3);
+
+        PostResponse response = client.send(receipts(5), 2);
+
+        assertThat(response.resultFor(2).isSuccess(), is(true));
+        assertThat(response.resultFor(3).getErrors(), is(asList("REJECTED")));
+        assertThat(response.resultFor(4).isSuccess(), is(true));
+    }
+
+    @Test
+    public void shouldOnlyGzipRequestBodiesWhenEnabled() {
+        client.send(receipts(3), 50);
+        assertThat(server.getGzippedRequests(), is(0));
+
+        when(config.get(ConfigurationKey.GZIP_REQUESTS)).thenReturn("true");
+        restClient.invalidate();
+        server.rejectItem(4);
+        PostResponse response = client.send(receipts(3), 50);
+
+        assertThat(server.getGzippedRequests(), is(1));
+        assertThat(server.getGzippedResponses(), is(2));
+        assertThat(response.getResults().size(), is(3));
+        assertThat(response.resultFor(1).getErrors(), is(asList("REJECTED")));
+    }
+
+    @Test
+    public void shouldReadCredentialsOnceUntilInvalidated() {
+        client.send(receipts(3), 1);
+        client.send(receipts(3), 1);
+        verify(config, times(1)).get(ConfigurationKey.KIOSK_PASSWORD);
+
+        restClient.invalidate();
+        client.send(receipts(1), 1);
+
+        verify(config, times(2)).get(ConfigurationKey.KIOSK_PASSWORD);
+        assertThat(server.getRequests().size(), is(7));
+    }
+
+    private List<Receipt> receipts(int count) {
+        List<Receipt> receipts = new ArrayList<Receipt>();
+        for (int i = 0; i < count; i++) {
+            LineItem lineItem = new LineItem("2GAL", 1, new Money(BigDecimal.TEN), ReceiptLineItemType.PRODUCT);
+            receipts.add(new Receipt(asList(lineItem), new Date(), 2, new Money(BigDecimal.TEN)));
+        }
+        return receipts;
+    }
+}
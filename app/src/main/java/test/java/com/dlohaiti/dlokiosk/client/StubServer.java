@@ -0,0 +1,128 @@
+package test.java.com.dlohaiti.dlokiosk.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
+import org.robolectric.Robolectric;
+import org.robolectric.tester.org.apache.http.HttpEntityStub;
+import org.robolectric.tester.org.apache.http.TestHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class StubServer implements HttpEntityStub.ResponseRule {
+    public static final String URL = "http://stub.dlohaiti.test";
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> requests = new ArrayList<String>();
+    private final Set<Integer> rejectedItems = new HashSet<Integer>();
+    private HttpRequest lastRequest;
+    private TestHttpResponse getResponse;
+    private int itemsReceived = 0;
+    private int gzippedRequests = 0;
+    private int gzippedResponses = 0;
+    private byte[] response;
+    private boolean gzipResponse;
+
+    public StubServer() {
+        Robolectric.getFakeHttpLayer().interceptHttpRequests(true);
+        Robolectric.getFakeHttpLayer().addHttpResponseRule(this);
+    }
+
+    public void rejectItem(int index) {
+        rejectedItems.add(index);
+    }
+
+    public void respondToGet(int status, String body, Header... headers) {
+        getResponse = new TestHttpResponse(status, body, headers);
+    }
+
+    public HttpRequest getLastRequest() {
+        return lastRequest;
+    }
+
+    public List<String> getRequests() {
+        return requests;
+    }
+
+    public int getGzippedRequests() {
+        return gzippedRequests;
+    }
+
+    public int getGzippedResponses() {
+        return gzippedResponses;
+    }
+
+    @Override public boolean matches(HttpRequest request) {
+        requests.add(request.getRequestLine().getMethod() + " " + request.getRequestLine().getUri().substring(URL.length()));
+        lastRequest = request;
+        if (!(request instanceof HttpEntityEnclosingRequest)) {
+            return true;
+        }
+        try {
+            InputStream entity = new ByteArrayInputStream(EntityUtils.toByteArray(((HttpEntityEnclosingRequest) request).getEntity()));
+            if (isGzip(request.getFirstHeader("Content-Encoding"))) {
+                gzippedRequests++;
+                entity = new GZIPInputStream(entity);
+            }
+            response = mapper.writeValueAsBytes(resultsFor(mapper.readTree(entity)));
+            gzipResponse = isGzip(request.getFirstHeader("Accept-Encoding"));
+            if (gzipResponse) {
+                gzippedResponses++;
+                response = gzip(response);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return true;
+    }
+
+    @Override public HttpResponse getResponse() {
+        if (!(lastRequest instanceof HttpEntityEnclosingRequest)) {
+            return getResponse;
+        }
+        if (gzipResponse) {
+            return new TestHttpResponse(200, response, new BasicHeader("Content-Type", "application/json"), new BasicHeader("Content-Encoding", "gzip"));
+        }
+        return new TestHttpResponse(200, response, new BasicHeader("Content-Type", "application/json"));
+    }
+
+    private boolean isGzip(Header header) {
+        return header != null && header.getValue().contains("gzip");
+    }
+
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(bytes);
+        gzip.close();
+        return out.toByteArray();
+    }
+
+    private ObjectNode resultsFor(JsonNode items) {
+        ObjectNode body = mapper.createObjectNode();
+        body.putArray("errors");
+        ArrayNode results = body.putArray("results");
+        for (int i = 0; i < items.size(); i++) {
+            ArrayNode errors = results.addObject().putArray("errors");
+            if (rejectedItems.contains(itemsReceived++)) {
+                errors.add("REJECTED");
+            }
+        }
+        return body;
+    }
+}
@@ -1,7 +1,6 @@
 package test.java.com.dlohaiti.dlokiosk.db;
 
 import main.java.com.dlohaiti.dlokiosk.DeliveryType;
-import main.java.com.dlohaiti.dlokiosk.KioskDate;
 import main.java.com.dlohaiti.dlokiosk.db.DeliveryRepository;
 import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
 import main.java.com.dlohaiti.dlokiosk.domain.Delivery;
@@ -27,7 +26,7 @@ public class DeliveryRepositoryTest {
 
     @Before
     public void setUp() {
-        repository = new DeliveryRepository(db, new KioskDate());
+        repository = new DeliveryRepository(db);
     }
 
     @Test
@@ -0,0 +1,194 @@
+package test.java.com.dlohaiti.dlokiosk.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Base64;
+import main.java.com.dlohaiti.dlokiosk.IconStore;
+import main.java.com.dlohaiti.dlokiosk.KioskDate;
+import main.java.com.dlohaiti.dlokiosk.db.InitialSchemaMigration;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabaseSettings;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static android.database.DatabaseUtils.longForQuery;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class KioskDatabaseTest {
+    Context context = Robolectric.application.getApplicationContext();
+    SQLiteDatabase db;
+
+    @Test
+    public void shouldEnableWriteAheadLoggingWhenConfiguringTheConnection() {
+        SQLiteDatabase connection = mock(SQLiteDatabase.class);
+
+        new KioskDatabase(context).onConfigure(connection);
+
+        verify(connection).enableWriteAheadLogging();
+        verify(connection).execSQL("PRAGMA synchronous=NORMAL");
+        verify(connection).execSQL("PRAGMA cache_size=-2048");
+    }
+
+    @Test
+    public void shouldLeaveTheJournalAloneWhenWriteAheadLoggingIsTurnedOff() {
+        SQLiteDatabase connection = mock(SQLiteDatabase.class);
+        KioskDatabaseSettings settings = new KioskDatabaseSettings(false, KioskDatabaseSettings.Synchronous.FULL, 1024);
+
+        new KioskDatabase(context, settings, new IconStore(context)).onConfigure(connection);
+
+        verify(connection, never()).enableWriteAheadLogging();
+        verify(connection).execSQL("PRAGMA synchronous=FULL");
+    }
+
+    @Test
+    public void shouldKeepDataWhenUpgradingFromVersionOne() {
+        givenVersionOneDatabaseWithData();
+
+        new KioskDatabase(context).onUpgrade(db, 1, KioskDatabase.DATABASE_VERSION);
+
+        assertThat(count("RECEIPTS"), is(1));
+        assertThat(count("RECEIPT_LINE_ITEMS"), is(1));
+        assertThat(count("SAMPLING_SITES"), is(1));
+        assertThat(configValue("KIOSK_ID"), is("kiosk01"));
+    }
+
+    @Test
+    public void shouldAddLookupIndexesWhenUpgradingFromVersionOne() {
+        givenVersionOneDatabaseWithData();
+
+        new KioskDatabase(context).onUpgrade(db, 1, KioskDatabase.DATABASE_VERSION);
+
+        Set<String> indexes = indexes();
+        assertTrue(indexes.contains("IDX_RECEIPT_LINE_ITEMS_RECEIPT_ID"));
+        assertTrue(indexes.contains("IDX_MEASUREMENTS_READING_ID"));
+        assertTrue(indexes.contains("IDX_SAMPLING_SITES_NAME"));
+        assertTrue(indexes.contains("IDX_SAMPLING_SITES_PARAMETERS_SITE_ID"));
+        assertTrue(indexes.contains("IDX_CONFIGURATION_KEY"));
+    }
+
+    @Test
+    public void shouldMoveBase64IconsIntoTheIconStoreWhenUpgradingFromVersionOne() {
+        givenVersionOneDatabaseWithData();
+        byte[] icon = new byte[]{1, 2, 3, 4};
+        db.execSQL("INSERT INTO PRODUCTS(SKU, ICON) VALUES ('2GAL', ?)", new Object[]{Base64.encodeToString(icon, Base64.DEFAULT)});
+        IconStore iconStore = new IconStore(context);
+
+        new KioskDatabase(context, new KioskDatabaseSettings(), iconStore).onUpgrade(db, 1, KioskDatabase.DATABASE_VERSION);
+
+        Cursor cursor = db.rawQuery("SELECT ICON, ICON_KEY FROM PRODUCTS WHERE SKU='2GAL'", null);
+        try {
+            cursor.moveToFirst();
+            assertTrue(cursor.isNull(0));
+            assertThat(cursor.getString(1), is(iconStore.save(icon)));
+            assertTrue(iconStore.contains(cursor.getString(1)));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void shouldFillEpochMillisFromFormattedDatesWhenUpgradingFromVersionOne() throws Exception {
+        givenVersionOneDatabaseWithData();
+        db.execSQL("INSERT INTO PROMOTIONS(SKU, START_DATE, END_DATE) VALUES ('PROMO10', '2013-06-01 00:00:00 EDT', 'not a date')");
+
+        new KioskDatabase(context).onUpgrade(db, 1, KioskDatabase.DATABASE_VERSION);
+
+        long created = new KioskDate().parse("2013-06-15 10:00:00 EDT").getTime();
+        Cursor cursor = db.rawQuery("SELECT r.CREATED_MILLIS, p.START_MILLIS, p.END_MILLIS FROM RECEIPTS r, PROMOTIONS p", null);
+        try {
+            cursor.moveToFirst();
+            assertThat(cursor.getLong(0), is(created));
+            assertThat(cursor.getLong(1), is(new KioskDate().parse("2013-06-01 00:00:00 EDT").getTime()));
+            assertTrue(cursor.isNull(2));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void shouldConvertAmountsToCentimesWhenUpgradingFromVersionOne() {
+        givenVersionOneDatabaseWithData();
+        db.execSQL("INSERT INTO PRODUCTS(SKU, PRICE) VALUES ('2GAL', 17.35)");
+
+        new KioskDatabase(context).onUpgrade(db, 1, KioskDatabase.DATABASE_VERSION);
+
+        assertThat(longForQuery(db, "SELECT TOTAL_CENTIMES FROM RECEIPTS", null), is(2000L));
+        assertThat(longForQuery(db, "SELECT PRICE_CENTIMES FROM RECEIPT_LINE_ITEMS", null), is(1000L));
+        assertThat(longForQuery(db, "SELECT PRICE_CENTIMES FROM PRODUCTS", null), is(1735L));
+    }
+
+    @Test
+    public void shouldCreateLookupIndexesOnFreshInstall() {
+        db = new KioskDatabase(context).getReadableDatabase();
+
+        assertTrue(indexes().contains("IDX_RECEIPT_LINE_ITEMS_RECEIPT_ID"));
+        assertTrue(indexes().contains("IDX_PROMOTIONS_PRODUCT_SKU"));
+        assertTrue(indexes().contains("IDX_PROMOTIONS_START_MILLIS"));
+    }
+
+    private void givenVersionOneDatabaseWithData() {
+        db = new VersionOneDatabase(context).getWritableDatabase();
+        db.execSQL("INSERT INTO RECEIPTS(ID, TOTAL_GALLONS, TOTAL, CREATED_DATE) VALUES (1, 10, '20.00', '2013-06-15 10:00:00 EDT')");
+        db.execSQL("INSERT INTO RECEIPT_LINE_ITEMS(RECEIPT_ID, SKU, QUANTITY, TYPE, PRICE) VALUES (1, '2GAL', 2, 'PRODUCT', '10.00')");
+        db.execSQL("INSERT INTO SAMPLING_SITES(NAME) VALUES ('Borehole')");
+    }
+
+    private int count(String table) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + table, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private String configValue(String key) {
+        Cursor cursor = db.rawQuery("SELECT VALUE FROM CONFIGURATION WHERE KEY=?", new String[]{key});
+        try {
+            cursor.moveToFirst();
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private Set<String> indexes() {
+        Set<String> indexes = new HashSet<String>();
+        Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type='index'", null);
+        try {
+            while (cursor.moveToNext()) {
+                indexes.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return indexes;
+    }
+
+    private static class VersionOneDatabase extends SQLiteOpenHelper {
+        public VersionOneDatabase(Context context) {
+            super(context, "kiosk.db", null, 1);
+        }
+
+        @Override public void onCreate(SQLiteDatabase db) {
+            new InitialSchemaMigration().apply(db);
+        }
+
+        @Override public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package test.java.com.dlohaiti.dlokiosk.db;
+
+import android.util.Log;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
+import main.java.com.dlohaiti.dlokiosk.db.ProductRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.Money;
+import main.java.com.dlohaiti.dlokiosk.domain.Product;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Ignore("Timing run, not part of the unit tests")
+@RunWith(RobolectricTestRunner.class)
+public class ProductRepositoryBenchmark {
+    private static final String TAG = ProductRepositoryBenchmark.class.getSimpleName();
+    KioskDatabase db = new KioskDatabase(Robolectric.application.getApplicationContext());
+    ProductRepository repository;
+
+    @Before
+    public void setUp() {
+        ShadowLog.stream = System.out;
+        repository = new ProductRepository(Robolectric.application.getApplicationContext(), db);
+    }
+
+    @Test
+    public void replaceAThousandProducts() {
+        List<Product> products = new ArrayList<Product>();
+        for (int i = 0; i < 1000; i++) {
+            products.add(new Product(null, "SKU" + i, null, false, 1, 1, 10, new Money(new BigDecimal("10")), "Product " + i, 5));
+        }
+        repository.list(); // open and migrate the database before timing
+
+        long start = System.nanoTime();
+        repository.replaceAll(products);
+        long replaceAll = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Product product : products) {
+            repository.save(product);
+        }
+        long savedOneByOne = System.nanoTime() - start;
+
+        Log.i(TAG, String.format("Wrote 1000 products in %d ms with replaceAll, %d ms saving them one by one",
+                replaceAll / 1000000, savedOneByOne / 1000000));
+    }
+}
@@ -1,9 +1,13 @@
 package test.java.com.dlohaiti.dlokiosk.db;
 
+import android.content.ContentValues;
 import android.content.Context;
-import main.java.com.dlohaiti.dlokiosk.Base64ImageConverter;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import main.java.com.dlohaiti.dlokiosk.db.DatabaseException;
 import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
 import main.java.com.dlohaiti.dlokiosk.db.ProductRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.Money;
 import main.java.com.dlohaiti.dlokiosk.domain.Product;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,10 +15,26 @@ import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
 public class ProductRepositoryTest {
@@ -24,7 +44,7 @@ public class ProductRepositoryTest {
     @Before
     public void setUp() {
         Context applicationContext = Robolectric.application.getApplicationContext();
-        repository = new ProductRepository(applicationContext, db, new Base64ImageConverter(applicationContext));
+        repository = new ProductRepository(applicationContext, db);
     }
 
     @Test
@@ -32,4 +52,45 @@ public class ProductRepositoryTest {
         List<Product> products = repository.list();
         assertThat(products.size(), is(0));
     }
+
+    @Test
+    public void shouldReplaceAllProductsThroughOneCompiledInsert() {
+        SQLiteDatabase wdb = mock(SQLiteDatabase.class, delegatesTo(db.getWritableDatabase()));
+        KioskDatabase countingDb = spy(db);
+        doReturn(wdb).when(countingDb).getWritableDatabase();
+        List<Product> products = new ArrayList<Product>();
+        for (int i = 0; i < 100; i++) {
+            products.add(new Product(null, "SKU" + i, null, false, 1, 1, 10, new Money(new BigDecimal("10")), "Product " + i, 5));
+        }
+
+        assertThat(new ProductRepository(Robolectric.application.getApplicationContext(), countingDb).replaceAll(products), is(true));
+
+        verify(wdb, times(1)).compileStatement(startsWith("INSERT INTO " + KioskDatabase.ProductsTable.TABLE_NAME));
+        verify(wdb, never()).insert(anyString(), anyString(), any(ContentValues.class));
+        verify(wdb, times(1)).beginTransaction();
+        verify(wdb, times(1)).setTransactionSuccessful();
+        List<Product> saved = repository.list();
+        assertThat(saved.size(), is(100));
+        assertThat(saved.get(99).getSku(), is("SKU99"));
+        assertThat(saved.get(99).getMaximumQuantity(), is(10));
+    }
+
+    @Test
+    public void shouldFindTheIconKeysTheProductsReferTo() {
+        repository.replaceAll(asList(product("2GAL", "a1"), product("5GAL", "b2"), product("10GAL", "a1"), product("BULK", null)));
+
+        assertThat(repository.findIconKeys(), is((Set<String>) new HashSet<String>(asList("a1", "b2"))));
+    }
+
+    @Test(expected = DatabaseException.class)
+    public void shouldFailInsteadOfFindingNoIconKeysWhenTheProductsCannotBeRead() {
+        KioskDatabase failingDb = mock(KioskDatabase.class);
+        when(failingDb.getReadableDatabase()).thenThrow(new SQLiteException("disk I/O error"));
+
+        new ProductRepository(Robolectric.application.getApplicationContext(), failingDb).findIconKeys();
+    }
+
+    private Product product(String sku, String iconKey) {
+        return new Product(null, sku, iconKey, false, 1, 1, 10, new Money(new BigDecimal("10")), sku, 5);
+    }
 }
@@ -0,0 +1,73 @@
+package test.java.com.dlohaiti.dlokiosk.db;
+
+import android.content.Context;
+
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
+import main.java.com.dlohaiti.dlokiosk.db.PromotionRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.Promotion;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionApplicationType.BASKET;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionApplicationType.SKU;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static test.java.com.dlohaiti.dlokiosk.domain.PromotionBuilder.promotionBuilder;
+
+@RunWith(RobolectricTestRunner.class)
+public class PromotionRepositoryTest {
+    Context context = Robolectric.application.getApplicationContext();
+    KioskDatabase db = new KioskDatabase(context);
+    PromotionRepository repository;
+    Date now = new Date(1000000);
+
+    @Before
+    public void setUp() {
+        repository = new PromotionRepository(context, db);
+        repository.replaceAll(asList(
+                promotionBuilder().withSku("BASKET").thatAppliesTo(BASKET).build(),
+                promotionBuilder().withSku("ABC10").thatAppliesTo(SKU).withProductSku("ABC").build(),
+                promotionBuilder().withSku("DEF10").thatAppliesTo(SKU).withProductSku("DEF").build(),
+                promotionBuilder().withSku("EXPIRED").thatAppliesTo(BASKET).withEndDate(new Date(999999)).build(),
+                promotionBuilder().withSku("UPCOMING").thatAppliesTo(SKU).withProductSku("ABC").withStartDate(new Date(1000001)).build()));
+    }
+
+    @Test
+    public void shouldFindActiveBasketPromotionsAndThoseForProductsInTheCart() {
+        List<Promotion> eligible = repository.findEligible(now, asList("ABC", "GHI"));
+
+        assertThat(skusOf(eligible), is((Set<String>) new HashSet<String>(asList("BASKET", "ABC10"))));
+    }
+
+    @Test
+    public void shouldFindOnlyBasketPromotionsForAnEmptyCart() {
+        List<Promotion> eligible = repository.findEligible(now, Collections.<String>emptyList());
+
+        assertThat(skusOf(eligible), is((Set<String>) new HashSet<String>(asList("BASKET"))));
+    }
+
+    @Test
+    public void shouldIncludePromotionsStartingOrEndingRightNow() {
+        List<Promotion> eligible = repository.findEligible(new Date(999999), asList("DEF"));
+
+        assertThat(skusOf(eligible), is((Set<String>) new HashSet<String>(asList("BASKET", "DEF10", "EXPIRED"))));
+    }
+
+    private Set<String> skusOf(List<Promotion> promotions) {
+        Set<String> skus = new HashSet<String>();
+        for (Promotion promotion : promotions) {
+            skus.add(promotion.getSku());
+        }
+        return skus;
+    }
+}
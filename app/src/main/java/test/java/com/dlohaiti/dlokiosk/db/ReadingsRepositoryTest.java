@@ -0,0 +1,184 @@
+package test.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import main.java.com.dlohaiti.dlokiosk.KioskDate;
+import main.java.com.dlohaiti.dlokiosk.db.DatabaseException;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
+import main.java.com.dlohaiti.dlokiosk.db.PageCallback;
+import main.java.com.dlohaiti.dlokiosk.db.ReadingsRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.Clock;
+import main.java.com.dlohaiti.dlokiosk.domain.Measurement;
+import main.java.com.dlohaiti.dlokiosk.domain.Reading;
+import main.java.com.dlohaiti.dlokiosk.domain.SamplingSite;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReadingsRepositoryTest {
+    KioskDatabase db = new KioskDatabase(Robolectric.application.getApplicationContext());
+    Clock clock = mock(Clock.class);
+    ReadingsRepository repository;
+    long now = 0;
+
+    @Before
+    public void setUp() {
+        repository = new ReadingsRepository(db, new KioskDate(), clock);
+    }
+
+    @Test
+    public void shouldBeEmptyWithoutReadings() {
+        assertThat(repository.list().size(), is(0));
+        assertThat(repository.count(), is(0));
+        assertThat(repository.isNotEmpty(), is(false));
+    }
+
+    @Test
+    public void shouldLoadTheSameReadingsAsOneQueryPerReading() {
+        save("Borehole", measurement("pH", "7.20"), measurement("Chlorine", "0.50"));
+        save("Tap");
+        save("Tank", measurement("Turbidity", "1.00"));
+
+        List<Reading> readings = repository.list();
+
+        assertThat(readings, is(readingsQueriedOneByOne()));
+        assertThat(readings.size(), is(3));
+        assertThat(readings.get(0).getMeasurements(), is(measurements(measurement("pH", "7.20"), measurement("Chlorine", "0.50"))));
+        assertThat(readings.get(1).getMeasurements().isEmpty(), is(true));
+        assertThat(readings.get(2).getCreatedDate(), is(new Date(2000)));
+        assertThat(repository.count(), is(3));
+        assertThat(repository.isNotEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldStreamReadingsPageByPage() {
+        for (int i = 0; i < 5; i++) {
+            save("Site" + i, measurement("pH", "7.0" + i), measurement("Chlorine", "0.5" + i));
+        }
+        final List<Integer> pageSizes = new ArrayList<Integer>();
+        final List<Reading> streamed = new ArrayList<Reading>();
+
+        int total = repository.forEachPage(2, new PageCallback<Reading>() {
+            @Override public void onPage(List<Reading> page) {
+                pageSizes.add(page.size());
+                streamed.addAll(page);
+            }
+        });
+
+        assertThat(total, is(5));
+        assertThat(pageSizes, is(asList(2, 2, 1)));
+        assertThat(streamed, is(repository.list()));
+    }
+
+    @Test
+    public void shouldKeepStreamingWhenPagesAreRemovedAsTheyAreSent() {
+        for (int i = 0; i < 5; i++) {
+            save("Site" + i, measurement("pH", "7.00"));
+        }
+
+        int total = repository.forEachPage(2, new PageCallback<Reading>() {
+            @Override public void onPage(List<Reading> page) {
+                repository.removeAll(page);
+            }
+        });
+
+        assertThat(total, is(5));
+        assertThat(repository.isNotEmpty(), is(false));
+    }
+
+    @Test
+    public void shouldFailInsteadOfEndingEarlyWhenAPageCannotBeRead() {
+        for (int i = 0; i < 5; i++) {
+            save("Site" + i, measurement("pH", "7.00"));
+        }
+        final List<Integer> pageSizes = new ArrayList<Integer>();
+        ReadingsRepository failingRepository = new ReadingsRepository(failingAfterFirstQuery(), new KioskDate(), clock);
+
+        try {
+            failingRepository.forEachPage(2, new PageCallback<Reading>() {
+                @Override public void onPage(List<Reading> page) {
+                    pageSizes.add(page.size());
+                }
+            });
+            fail("Expected the unreadable page to fail the stream");
+        } catch (DatabaseException expected) {
+            assertThat(pageSizes, is(asList(2)));
+        }
+    }
+
+    private KioskDatabase failingAfterFirstQuery() {
+        final SQLiteDatabase readable = db.getReadableDatabase();
+        SQLiteDatabase failing = mock(SQLiteDatabase.class, delegatesTo(readable));
+        doAnswer(new Answer<Cursor>() {
+            private int queries = 0;
+
+            @Override public Cursor answer(InvocationOnMock invocation) throws Throwable {
+                if (++queries > 1) {
+                    throw new SQLiteException("disk I/O error");
+                }
+                return readable.rawQuery((String) invocation.getArguments()[0], (String[]) invocation.getArguments()[1]);
+            }
+        }).when(failing).rawQuery(anyString(), any(String[].class));
+        KioskDatabase kioskDatabase = mock(KioskDatabase.class);
+        when(kioskDatabase.getReadableDatabase()).thenReturn(failing);
+        return kioskDatabase;
+    }
+
+    private void save(String site, Measurement... measurements) {
+        when(clock.now()).thenReturn(new Date(now));
+        now += 1000;
+        repository.save(new Reading(new SamplingSite(site), measurements(measurements), null));
+    }
+
+    private Measurement measurement(String parameter, String value) {
+        return new Measurement(parameter, new BigDecimal(value));
+    }
+
+    private Set<Measurement> measurements(Measurement... measurements) {
+        return new HashSet<Measurement>(asList(measurements));
+    }
+
+    private List<Reading> readingsQueriedOneByOne() {
+        List<Reading> readings = new ArrayList<Reading>();
+        SQLiteDatabase rdb = db.getReadableDatabase();
+        Cursor rc = rdb.rawQuery("SELECT ID, SAMPLING_SITE_NAME, CREATED_MILLIS FROM READINGS", null);
+        try {
+            while (rc.moveToNext()) {
+                Set<Measurement> measurements = new HashSet<Measurement>();
+                Cursor mc = rdb.rawQuery("SELECT PARAMETER_NAME, VALUE FROM MEASUREMENTS WHERE READING_ID=?", new String[]{rc.getString(0)});
+                while (mc.moveToNext()) {
+                    measurements.add(new Measurement(mc.getString(0), new BigDecimal(mc.getString(1))));
+                }
+                mc.close();
+                readings.add(new Reading(rc.getLong(0), rc.getString(1), measurements, new Date(rc.getLong(2))));
+            }
+        } finally {
+            rc.close();
+        }
+        return readings;
+    }
+}
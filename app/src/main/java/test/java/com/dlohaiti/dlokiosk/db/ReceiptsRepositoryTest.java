@@ -0,0 +1,179 @@
+package test.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import main.java.com.dlohaiti.dlokiosk.db.DatabaseException;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
+import main.java.com.dlohaiti.dlokiosk.db.PageCallback;
+import main.java.com.dlohaiti.dlokiosk.db.ReceiptsRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.Clock;
+import main.java.com.dlohaiti.dlokiosk.domain.LineItem;
+import main.java.com.dlohaiti.dlokiosk.domain.Money;
+import main.java.com.dlohaiti.dlokiosk.domain.Receipt;
+import main.java.com.dlohaiti.dlokiosk.domain.ReceiptFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static main.java.com.dlohaiti.dlokiosk.db.ReceiptLineItemType.PRODUCT;
+import static main.java.com.dlohaiti.dlokiosk.db.ReceiptLineItemType.PROMOTION;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReceiptsRepositoryTest {
+    KioskDatabase db = new KioskDatabase(Robolectric.application.getApplicationContext());
+    ReceiptsRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new ReceiptsRepository(db, new ReceiptFactory(new Clock()));
+    }
+
+    @Test
+    public void shouldReturnEmptyListWhenNoReceipts() {
+        assertThat(repository.list().size(), is(0));
+    }
+
+    @Test
+    public void shouldLoadReceiptsWithTheirOwnLineItems() {
+        repository.add(receipt(new Date(0), lineItem("2GAL", 2, "20.00"), promotionLineItem("PROMO10")));
+        repository.add(receipt(new Date(1000), lineItem("5GAL", 1, "15.50")));
+        repository.add(receipt(new Date(2000)));
+
+        List<Receipt> receipts = repository.list();
+
+        assertThat(receipts.size(), is(3));
+        assertThat(receipts.get(0).getLineItems(), is(asList(lineItem("2GAL", 2, "20.00"), promotionLineItem("PROMO10"))));
+        assertThat(receipts.get(0).getCreatedDate(), is(new Date(0)));
+        assertThat(receipts.get(1).getLineItems(), is(asList(lineItem("5GAL", 1, "15.50"))));
+        assertThat(receipts.get(2).getLineItems().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldMergeLineItemsOfTheSameSkuSavedOnePerTap() {
+        repository.add(receipt(new Date(0), lineItem("2GAL", 1, "10.00"), lineItem("5GAL", 1, "15.50"), lineItem("2GAL", 1, "9.00"), promotionLineItem("PROMO10")));
+
+        List<Receipt> receipts = repository.list();
+
+        assertThat(receipts.get(0).getLineItems(), is(asList(lineItem("2GAL", 2, "19.00"), lineItem("5GAL", 1, "15.50"), promotionLineItem("PROMO10"))));
+    }
+
+    @Test
+    public void shouldStreamReceiptsPageByPage() {
+        for (int i = 0; i < 7; i++) {
+            repository.add(receipt(new Date(i * 1000), lineItem("SKU" + i, 1, "1.00"), lineItem("OTHER", 2, "4.00")));
+        }
+        final List<Integer> pageSizes = new ArrayList<Integer>();
+        final List<Receipt> streamed = new ArrayList<Receipt>();
+
+        int total = repository.forEachPage(3, new PageCallback<Receipt>() {
+            @Override public void onPage(List<Receipt> page) {
+                pageSizes.add(page.size());
+                streamed.addAll(page);
+            }
+        });
+
+        assertThat(total, is(7));
+        assertThat(pageSizes, is(asList(3, 3, 1)));
+        assertThat(streamed, is(repository.list()));
+    }
+
+    @Test
+    public void shouldKeepStreamingWhenPagesAreRemovedAsTheyAreSent() {
+        for (int i = 0; i < 5; i++) {
+            repository.add(receipt(new Date(i * 1000), lineItem("SKU" + i, 1, "1.00")));
+        }
+
+        int total = repository.forEachPage(2, new PageCallback<Receipt>() {
+            @Override public void onPage(List<Receipt> page) {
+                for (Receipt receipt : page) {
+                    repository.remove(receipt);
+                }
+            }
+        });
+
+        assertThat(total, is(5));
+        assertThat(repository.list().size(), is(0));
+    }
+
+    @Test
+    public void shouldFailInsteadOfEndingEarlyWhenAPageCannotBeRead() {
+        for (int i = 0; i < 5; i++) {
+            repository.add(receipt(new Date(i * 1000), lineItem("SKU" + i, 1, "1.00")));
+        }
+        final List<Integer> pageSizes = new ArrayList<Integer>();
+        ReceiptsRepository failingRepository = new ReceiptsRepository(failingAfterFirstQuery(), new ReceiptFactory(new Clock()));
+
+        try {
+            failingRepository.forEachPage(2, new PageCallback<Receipt>() {
+                @Override public void onPage(List<Receipt> page) {
+                    pageSizes.add(page.size());
+                }
+            });
+            fail("Expected the unreadable page to fail the stream");
+        } catch (DatabaseException expected) {
+            assertThat(pageSizes, is(asList(2)));
+        }
+    }
+
+    @Test
+    public void shouldRemoveAcknowledgedReceiptsTogether() {
+        for (int i = 0; i < 3; i++) {
+            repository.add(receipt(new Date(i * 1000), lineItem("SKU" + i, 1, "1.00")));
+        }
+        List<Receipt> receipts = repository.list();
+
+        assertThat(repository.removeAll(receipts.subList(0, 2)), is(true));
+
+        assertThat(repository.list(), is(receipts.subList(2, 3)));
+    }
+
+    private KioskDatabase failingAfterFirstQuery() {
+        final SQLiteDatabase readable = db.getReadableDatabase();
+        SQLiteDatabase failing = mock(SQLiteDatabase.class, delegatesTo(readable));
+        doAnswer(new Answer<Cursor>() {
+            private int queries = 0;
+
+            @Override public Cursor answer(InvocationOnMock invocation) throws Throwable {
+                if (++queries > 1) {
+                    throw new SQLiteException("disk I/O error");
+                }
+                return readable.rawQuery((String) invocation.getArguments()[0], (String[]) invocation.getArguments()[1]);
+            }
+        }).when(failing).rawQuery(anyString(), any(String[].class));
+        KioskDatabase kioskDatabase = mock(KioskDatabase.class);
+        when(kioskDatabase.getReadableDatabase()).thenReturn(failing);
+        return kioskDatabase;
+    }
+
+    private Receipt receipt(Date createdDate, LineItem... lineItems) {
+        return new Receipt(asList(lineItems), createdDate, 0, new Money(BigDecimal.TEN));
+    }
+
+    private LineItem lineItem(String sku, int quantity, String price) {
+        return new LineItem(sku, quantity, new Money(new BigDecimal(price)), PRODUCT);
+    }
+
+    private LineItem promotionLineItem(String sku) {
+        return new LineItem(sku, 1, new Money(new BigDecimal("0.00")), PROMOTION);
+    }
+}
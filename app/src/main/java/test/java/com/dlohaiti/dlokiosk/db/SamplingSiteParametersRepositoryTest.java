@@ -0,0 +1,124 @@
+package test.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import main.java.com.dlohaiti.dlokiosk.ParameterSamplingSites;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
+import main.java.com.dlohaiti.dlokiosk.db.SamplingSiteParametersRepository;
+import main.java.com.dlohaiti.dlokiosk.db.SamplingSiteRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.Parameter;
+import main.java.com.dlohaiti.dlokiosk.domain.SamplingSite;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.SortedSet;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+@RunWith(RobolectricTestRunner.class)
+public class SamplingSiteParametersRepositoryTest {
+    KioskDatabase db = new KioskDatabase(Robolectric.application.getApplicationContext());
+    SamplingSiteRepository samplingSiteRepository = new SamplingSiteRepository(db);
+    SamplingSiteParametersRepository repository = new SamplingSiteParametersRepository(db, samplingSiteRepository);
+
+    @Test
+    public void shouldCreateEachSharedSamplingSiteOnceWhenReplacingAll() {
+        repository.replaceAll(asList(
+                parameter("pH", "Borehole", "Tap"),
+                parameter("Chlorine", "Tap", "Tank"),
+                parameter("Turbidity", "Borehole")));
+
+        assertThat(samplingSiteRepository.list().size(), is(3));
+        assertThat(names(repository.findBySamplingSite(new SamplingSite("Tap"))), is("[Chlorine, pH]"));
+        assertThat(names(repository.findBySamplingSite(new SamplingSite("Borehole"))), is("[pH, Turbidity]"));
+        assertThat(names(repository.findBySamplingSite(new SamplingSite("Tank"))), is("[Chlorine]"));
+    }
+
+    @Test
+    public void shouldReuseExistingSamplingSitesWhenSavingAParameter() {
+        repository.replaceAll(asList(parameter("pH", "Borehole", "Tap")));
+
+        repository.save(parameter("Chlorine", "Tap", "Tank"));
+
+        assertThat(samplingSiteRepository.list().size(), is(3));
+        assertThat(names(repository.findBySamplingSite(new SamplingSite("Tap"))), is("[Chlorine, pH]"));
+    }
+
+    @Test
+    public void shouldServeRepeatLookupsFromTheCacheUntilParametersAreReplaced() {
+        repository.replaceAll(asList(parameter("pH", "Tap")));
+        assertThat(names(repository.findBySamplingSite(new SamplingSite("Tap"))), is("[pH]"));
+
+        db.getWritableDatabase().execSQL("DELETE FROM SAMPLING_SITES_PARAMETERS");
+        assertThat(names(repository.findBySamplingSite(new SamplingSite("Tap"))), is("[pH]"));
+
+        repository.replaceAll(asList(parameter("Chlorine", "Tap")));
+        assertThat(names(repository.findBySamplingSite(new SamplingSite("Tap"))), is("[Chlorine]"));
+    }
+
+    @Test
+    public void shouldNotCacheALoadThatRacedAWrite() {
+        repository.replaceAll(asList(parameter("pH", "Tap"), parameter("Chlorine", "Tap")));
+        final SQLiteDatabase readable = db.getReadableDatabase();
+        SQLiteDatabase racing = mock(SQLiteDatabase.class, delegatesTo(readable));
+        KioskDatabase racingDb = spy(db);
+        doReturn(racing).when(racingDb).getReadableDatabase();
+        final SamplingSiteParametersRepository racingRepository = new SamplingSiteParametersRepository(racingDb, samplingSiteRepository);
+        doAnswer(new Answer<Cursor>() {
+            private boolean raced = false;
+
+            @Override public Cursor answer(InvocationOnMock invocation) throws Throwable {
+                Cursor cursor = readable.rawQuery((String) invocation.getArguments()[0], (String[]) invocation.getArguments()[1]);
+                cursor.getCount();
+                if (!raced) {
+                    raced = true;
+                    racingRepository.remove("Chlorine");
+                }
+                return cursor;
+            }
+        }).when(racing).rawQuery(anyString(), any(String[].class));
+
+        assertThat(names(racingRepository.findBySamplingSite(new SamplingSite("Tap"))), is("[Chlorine, pH]"));
+
+        assertThat(names(racingRepository.findBySamplingSite(new SamplingSite("Tap"))), is("[pH]"));
+    }
+
+    @Test
+    public void shouldReturnNoParametersForAnUnknownSite() {
+        repository.replaceAll(asList(parameter("pH", "Tap")));
+
+        assertThat(repository.findBySamplingSite(new SamplingSite("Nowhere")).isEmpty(), is(true));
+    }
+
+    private ParameterSamplingSites parameter(String name, String... sites) {
+        SamplingSite[] samplingSites = new SamplingSite[sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            samplingSites[i] = new SamplingSite(sites[i]);
+        }
+        return new ParameterSamplingSites(new Parameter(name, "mg/L", null, null, false, null), asList(samplingSites));
+    }
+
+    private String names(SortedSet<Parameter> parameters) {
+        StringBuilder names = new StringBuilder("[");
+        for (Parameter parameter : parameters) {
+            if (names.length() > 1) {
+                names.append(", ");
+            }
+            names.append(parameter.getName());
+        }
+        return names.append("]").toString();
+    }
+}
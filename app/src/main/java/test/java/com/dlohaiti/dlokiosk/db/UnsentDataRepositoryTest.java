@@ -0,0 +1,41 @@
+package test.java.com.dlohaiti.dlokiosk.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import main.java.com.dlohaiti.dlokiosk.db.KioskDatabase;
+import main.java.com.dlohaiti.dlokiosk.db.UnsentCounts;
+import main.java.com.dlohaiti.dlokiosk.db.UnsentDataRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class UnsentDataRepositoryTest {
+    KioskDatabase db = new KioskDatabase(Robolectric.application.getApplicationContext());
+    UnsentDataRepository repository = new UnsentDataRepository(db);
+
+    @Test
+    public void shouldHaveNothingToSendOnAFreshDatabase() {
+        assertThat(repository.hasAny(), is(false));
+        assertThat(repository.counts().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldCountEachKindOfUnsentData() {
+        SQLiteDatabase wdb = db.getWritableDatabase();
+        wdb.execSQL("INSERT INTO READINGS(SAMPLING_SITE_NAME, CREATED_MILLIS) VALUES ('Tap', 1371304800000)");
+        wdb.execSQL("INSERT INTO RECEIPTS(TOTAL_GALLONS, TOTAL_CENTIMES, CREATED_MILLIS) VALUES (10, 2000, 1371304800000)");
+        wdb.execSQL("INSERT INTO RECEIPTS(TOTAL_GALLONS, TOTAL_CENTIMES, CREATED_MILLIS) VALUES (5, 1000, 1371305100000)");
+
+        UnsentCounts counts = repository.counts();
+
+        assertThat(repository.hasAny(), is(true));
+        assertThat(counts.getReadings(), is(1));
+        assertThat(counts.getReceipts(), is(2));
+        assertThat(counts.getDeliveries(), is(0));
+        assertThat(counts.getTotal(), is(3));
+    }
+}
@@ -0,0 +1,55 @@
+package test.java.com.dlohaiti.dlokiosk.domain;
+
+import com.google.inject.Provider;
+import main.java.com.dlohaiti.dlokiosk.db.ReceiptsRepository;
+import main.java.com.dlohaiti.dlokiosk.domain.CartSessions;
+import main.java.com.dlohaiti.dlokiosk.domain.Clock;
+import main.java.com.dlohaiti.dlokiosk.domain.PricingEngine;
+import main.java.com.dlohaiti.dlokiosk.domain.Register;
+import main.java.com.dlohaiti.dlokiosk.domain.ShoppingCart;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class CartSessionsTest {
+    private CartSessions sessions;
+
+    @Before
+    public void setUp() {
+        final Register register = new Register(mock(Clock.class), mock(ReceiptsRepository.class), new PricingEngine());
+        sessions = new CartSessions(new Provider<ShoppingCart>() {
+            @Override public ShoppingCart get() {
+                return new ShoppingCart(register);
+            }
+        });
+    }
+
+    @Test
+    public void shouldKeepTheSameCartWhileSessionIsOpen() {
+        ShoppingCart cart = sessions.open(CartSessions.COUNTER_SALE);
+        assertThat(sessions.open(CartSessions.COUNTER_SALE), is(sameInstance(cart)));
+    }
+
+    @Test
+    public void shouldGiveEachSessionItsOwnCart() {
+        ShoppingCart counter = sessions.open(CartSessions.COUNTER_SALE);
+        ShoppingCart delivery = sessions.open("DELIVERY");
+        assertThat(delivery, is(not(sameInstance(counter))));
+    }
+
+    @Test
+    public void shouldStartOverAfterSessionIsClosed() {
+        ShoppingCart cart = sessions.open(CartSessions.COUNTER_SALE);
+        cart.addProduct(ProductBuilder.productBuilder().build());
+        sessions.close(CartSessions.COUNTER_SALE);
+
+        ShoppingCart next = sessions.open(CartSessions.COUNTER_SALE);
+        assertThat(next, is(not(sameInstance(cart))));
+        assertThat(next.isEmpty(), is(true));
+    }
+}
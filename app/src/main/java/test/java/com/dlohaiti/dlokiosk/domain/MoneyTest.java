@@ -0,0 +1,38 @@
+package test.java.com.dlohaiti.dlokiosk.domain;
+
+import main.java.com.dlohaiti.dlokiosk.domain.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class MoneyTest {
+
+    @Test
+    public void shouldRoundToTheNearestCentime() {
+        assertThat(new Money(new BigDecimal("17.3567")).getCentimes(), is(1736L));
+        assertThat(new Money(new BigDecimal("0.005")).getCentimes(), is(1L));
+        assertThat(new Money(new BigDecimal(17.35d)).getCentimes(), is(1735L));
+    }
+
+    @Test
+    public void shouldBeEqualRegardlessOfScale() {
+        assertThat(new Money(BigDecimal.TEN), is(new Money(new BigDecimal("10.00"))));
+        assertThat(new Money(BigDecimal.TEN).getAmount(), is(new BigDecimal("10.00")));
+    }
+
+    @Test
+    public void shouldTakeAPercentage() {
+        assertThat(Money.centimes(700).percent(new BigDecimal("23")), is(Money.centimes(161)));
+        assertThat(Money.centimes(1000).percent(new BigDecimal("12.5")), is(Money.centimes(125)));
+    }
+
+    @Test
+    public void shouldSplitIntoRoundedShares() {
+        assertThat(Money.centimes(374).dividedBy(3), is(Money.centimes(125)));
+        assertThat(Money.centimes(500).dividedBy(3), is(Money.centimes(167)));
+        assertThat(Money.centimes(-500).dividedBy(3), is(Money.centimes(-167)));
+    }
+}
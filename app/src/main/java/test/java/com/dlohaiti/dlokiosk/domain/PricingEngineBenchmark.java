@@ -0,0 +1,59 @@
+package test.java.com.dlohaiti.dlokiosk.domain;
+
+import android.util.Log;
+import main.java.com.dlohaiti.dlokiosk.domain.PricingEngine;
+import main.java.com.dlohaiti.dlokiosk.domain.Product;
+import main.java.com.dlohaiti.dlokiosk.domain.Promotion;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionApplicationType.BASKET;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionApplicationType.SKU;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionType.AMOUNT;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionType.PERCENT;
+import static test.java.com.dlohaiti.dlokiosk.domain.ProductBuilder.productBuilder;
+import static test.java.com.dlohaiti.dlokiosk.domain.PromotionBuilder.promotionBuilder;
+
+@Ignore("Timing run, not part of the unit tests")
+@RunWith(RobolectricTestRunner.class)
+public class PricingEngineBenchmark {
+    private static final String TAG = PricingEngineBenchmark.class.getSimpleName();
+    private static final int ITERATIONS = 200;
+    PricingEngine engine = new PricingEngine();
+
+    @Before
+    public void setUp() {
+        ShadowLog.stream = System.out;
+    }
+
+    @Test
+    public void priceCartsOfGrowingSize() {
+        List<Promotion> promotions = new ArrayList<Promotion>();
+        for (int i = 0; i < 20; i++) {
+            promotions.add(promotionBuilder().thatAppliesTo(SKU).withProductSku("SKU" + i).withAmount("1").withPromotionType(AMOUNT).build());
+        }
+        promotions.add(promotionBuilder().thatAppliesTo(BASKET).withAmount("10").withPromotionType(PERCENT).build());
+
+        for (int size : new int[]{1, 50, 500}) {
+            List<Product> products = new ArrayList<Product>();
+            for (int i = 0; i < size; i++) {
+                products.add(productBuilder().withSku("SKU" + (i % 100)).withPrice(10d).build());
+            }
+            for (int i = 0; i < ITERATIONS; i++) {
+                engine.price(products, promotions);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                engine.price(products, promotions);
+            }
+            Log.i(TAG, String.format("Priced a cart of %d items in %d us", size, (System.nanoTime() - start) / ITERATIONS / 1000));
+        }
+    }
+}
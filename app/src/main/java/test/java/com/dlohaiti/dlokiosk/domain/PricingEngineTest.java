@@ -0,0 +1,111 @@
+package test.java.com.dlohaiti.dlokiosk.domain;
+
+import main.java.com.dlohaiti.dlokiosk.domain.LineItem;
+import main.java.com.dlohaiti.dlokiosk.domain.Money;
+import main.java.com.dlohaiti.dlokiosk.domain.Pricing;
+import main.java.com.dlohaiti.dlokiosk.domain.PricingEngine;
+import main.java.com.dlohaiti.dlokiosk.domain.Product;
+import main.java.com.dlohaiti.dlokiosk.domain.Promotion;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static main.java.com.dlohaiti.dlokiosk.db.ReceiptLineItemType.PROMOTION;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionApplicationType.BASKET;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionApplicationType.SKU;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionType.AMOUNT;
+import static main.java.com.dlohaiti.dlokiosk.domain.PromotionType.PERCENT;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static test.java.com.dlohaiti.dlokiosk.domain.ProductBuilder.productBuilder;
+import static test.java.com.dlohaiti.dlokiosk.domain.PromotionBuilder.promotionBuilder;
+
+public class PricingEngineTest {
+    PricingEngine engine = new PricingEngine();
+
+    @Test
+    public void shouldReturnLineItemsAndTotalsFromTheSamePass() {
+        Product abc = productBuilder().withSku("ABC").withPrice(10d).withGallons(5).withQuantity(2).build();
+        Product def = productBuilder().withSku("DEF").withPrice(5d).withGallons(1).build();
+        Promotion basket = promotionBuilder().withSku("BASKET10").thatAppliesTo(BASKET).withAmount("10").withPromotionType(PERCENT).build();
+
+        Pricing pricing = engine.price(asList(abc, def), asList(basket));
+
+        assertThat(pricing.getSubtotal(), is(Money.centimes(2500)));
+        assertThat(pricing.getTotal(), is(Money.centimes(2250)));
+        assertThat(pricing.getTotalGallons(), is(11));
+        List<LineItem> lineItems = pricing.getLineItems();
+        assertThat(lineItems.size(), is(3));
+        assertThat(lineItems.get(0).getType(), is(PROMOTION));
+        assertThat(lineItems.get(1).getPrice(), is(Money.centimes(1833)));
+        assertThat(lineItems.get(2).getPrice(), is(Money.centimes(417)));
+    }
+
+    @Test
+    public void shouldGiveTheBasketDiscountCentimesThatDoNotDivideEvenlyToTheFirstLine() {
+        Product abc = productBuilder().withSku("ABC").withPrice(10d).build();
+        Product def = productBuilder().withSku("DEF").withPrice(5d).withQuantity(2).build();
+        Promotion oneOff = promotionBuilder().withSku("BASKET1").thatAppliesTo(BASKET).withAmount("1").withPromotionType(AMOUNT).build();
+
+        Pricing pricing = engine.price(asList(abc, def), asList(oneOff));
+
+        assertThat(pricing.getTotal(), is(Money.centimes(1900)));
+        List<LineItem> lineItems = pricing.getLineItems();
+        assertThat(lineItems.get(1).getPrice(), is(Money.centimes(966)));
+        assertThat(lineItems.get(2).getPrice(), is(Money.centimes(934)));
+    }
+
+    @Test
+    public void shouldApplyEachSkuPromotionToTheFirstMatchingProductOnly() {
+        Product abc = productBuilder().withSku("ABC").withPrice(10d).build();
+        Promotion twoOff = promotionBuilder().thatAppliesTo(SKU).withProductSku("ABC").withAmount("2").withPromotionType(AMOUNT).build();
+        Promotion tenPercentOff = promotionBuilder().thatAppliesTo(SKU).withProductSku("ABC").withAmount("10").withPromotionType(PERCENT).build();
+
+        Pricing pricing = engine.price(asList(abc, abc), asList(twoOff, tenPercentOff));
+
+        assertThat(pricing.getLineItems().get(2).getPrice(), is(Money.centimes(700)));
+        assertThat(pricing.getLineItems().get(3).getPrice(), is(Money.centimes(1000)));
+        assertThat(pricing.getTotal(), is(Money.centimes(1700)));
+    }
+
+    @Test
+    public void shouldPriceABasketPromotionWithoutProducts() {
+        Promotion basket = promotionBuilder().thatAppliesTo(BASKET).withAmount("5").withPromotionType(AMOUNT).build();
+
+        Pricing pricing = engine.price(Collections.<Product>emptyList(), asList(basket));
+
+        assertThat(pricing.getTotal(), is(Money.ZERO));
+        assertThat(pricing.getLineItems().size(), is(1));
+    }
+
+    @Test
+    public void shouldApplyEachPromotionOnceHoweverLargeTheCart() {
+        List<Promotion> promotions = new ArrayList<Promotion>();
+        for (int i = 0; i < 20; i++) {
+            promotions.add(spy(promotionBuilder().thatAppliesTo(SKU).withProductSku("SKU" + i).withAmount("1").withPromotionType(AMOUNT).build()));
+        }
+        Promotion basket = spy(promotionBuilder().thatAppliesTo(BASKET).withAmount("10").withPromotionType(PERCENT).build());
+        promotions.add(basket);
+        List<Product> products = new ArrayList<Product>();
+        for (int i = 0; i < 500; i++) {
+            products.add(productBuilder().withSku("SKU" + (i % 100)).withPrice(10d).build());
+        }
+
+        Pricing pricing = engine.price(products, promotions);
+
+        assertThat(pricing.getLineItems().size(), is(products.size() + promotions.size()));
+        for (Promotion promotion : promotions.subList(0, 20)) {
+            verify(promotion, times(1)).discountFor(any(Product.class));
+        }
+        verify(basket, times(1)).discountCart(any(Money.class));
+        verify(basket, never()).discountFor(any(Product.class));
+    }
+}
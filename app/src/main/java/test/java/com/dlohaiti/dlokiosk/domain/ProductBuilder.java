@@ -1,7 +1,5 @@
 package test.java.com.dlohaiti.dlokiosk.domain;
 
-import android.graphics.Bitmap;
-
 import java.math.BigDecimal;
 
 import main.java.com.dlohaiti.dlokiosk.domain.Money;
@@ -11,7 +9,7 @@ import main.java.com.dlohaiti.dlokiosk.domain.Product;
 public class ProductBuilder {
     private Long id = 1L;
     private String sku = "ABC";
-    private Bitmap resource = null;
+    private String iconKey = null;
     private boolean requiresQuantity = false;
     private Integer quantity = 1;
     private Integer minimum = null;
@@ -36,8 +34,8 @@ public class ProductBuilder {
         return this;
     }
 
-    public ProductBuilder withResource(Bitmap resource) {
-        this.resource = resource;
+    public ProductBuilder withIconKey(String iconKey) {
+        this.iconKey = iconKey;
         return this;
     }
 
@@ -82,6 +80,6 @@ public class ProductBuilder {
     }
 
     public Product build() {
-        return new Product(id, sku, resource, requiresQuantity, quantity, minimum, maximum, price, description, gallons);
+        return new Product(id, sku, iconKey, requiresQuantity, quantity, minimum, maximum, price, description, gallons);
     }
 }
@@ -1,9 +1,11 @@
 package test.java.com.dlohaiti.dlokiosk.domain;
 
+import main.java.com.dlohaiti.dlokiosk.db.DatabaseException;
 import main.java.com.dlohaiti.dlokiosk.db.ReceiptsRepository;
 import main.java.com.dlohaiti.dlokiosk.domain.Clock;
 import main.java.com.dlohaiti.dlokiosk.domain.LineItem;
 import main.java.com.dlohaiti.dlokiosk.domain.Money;
+import main.java.com.dlohaiti.dlokiosk.domain.PricingEngine;
 import main.java.com.dlohaiti.dlokiosk.domain.Product;
 import main.java.com.dlohaiti.dlokiosk.domain.Promotion;
 import main.java.com.dlohaiti.dlokiosk.domain.PromotionApplicationType;
@@ -15,7 +17,6 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
 
 import static test.java.com.dlohaiti.dlokiosk.domain.ProductBuilder.productBuilder;
@@ -25,6 +26,7 @@ import static test.java.com.dlohaiti.dlokiosk.domain.PromotionBuilder.promotionB
 import static main.java.com.dlohaiti.dlokiosk.domain.PromotionType.PERCENT;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 public class RegisterTest {
@@ -39,11 +41,12 @@ public class RegisterTest {
             .withAmount("10")
             .withPromotionType(PERCENT).build();
     ReceiptsRepository repository = mock(ReceiptsRepository.class);
-    Register register = new Register(mock(Clock.class), repository);
+    Register register = new Register(mock(Clock.class), repository, new PricingEngine());
     ShoppingCart cart;
 
     @Before
     public void setUp() {
+        when(repository.add(any(Receipt.class))).thenReturn(true);
         cart = new ShoppingCart(register);
         tenDollarTenGallonABC = productBuilder()
                 .withSku("ABC")
@@ -69,17 +72,14 @@ public class RegisterTest {
         cart.addPromotion(tenPercentOffABC);
         Receipt receipt = register.checkout(cart);
 
-        List<Money> lineItemPrices = new ArrayList<Money>();
-        for (LineItem item : receipt.getProductLineItems()) {
-            lineItemPrices.add(item.getPrice());
-        }
-
         assertThat(receipt.getTotal(), is(new Money(new BigDecimal("19.00"))));
         assertThat(receipt.getProductLineItemsCount(), is(2));
 
-        // should have one line item with 10 and one with 9
-        assertThat(lineItemPrices.contains(new Money(BigDecimal.TEN)), is(true));
-        assertThat(lineItemPrices.contains(new Money(new BigDecimal("9.00"))), is(true));
+        // should have one line item of 2, discounted by 10% of one unit
+        List<LineItem> lineItems = receipt.getProductLineItems();
+        assertThat(lineItems.size(), is(1));
+        assertThat(lineItems.get(0).getQuantity(), is(2));
+        assertThat(lineItems.get(0).getPrice(), is(new Money(new BigDecimal("19.00"))));
     }
 
     @Test
@@ -125,6 +125,27 @@ public class RegisterTest {
         verify(repository, times(1)).add(receipt);
     }
 
+    @Test(expected = DatabaseException.class)
+    public void shouldFailCheckoutWhenTheReceiptIsNotSaved() {
+        when(repository.add(any(Receipt.class))).thenReturn(false);
+        cart.addProduct(tenDollarTenGallonABC);
+
+        register.checkout(cart);
+    }
+
+    @Test
+    public void shouldKeepTheCartWhenTheReceiptIsNotSaved() {
+        when(repository.add(any(Receipt.class))).thenReturn(false);
+        cart.addProduct(tenDollarTenGallonABC);
+
+        try {
+            cart.checkout();
+        } catch (DatabaseException expected) {
+        }
+
+        assertThat(cart.getProducts().size(), is(1));
+    }
+
     @Test
     public void shouldSubtotalCart() {
         cart.addProduct(tenDollarTenGallonABC);
@@ -144,6 +165,6 @@ public class RegisterTest {
         cart.addPromotion(tenPercentOffBasket);
         Money total = register.total(cart);
 
-        assertThat(total, is(new Money(new BigDecimal("33.61"))));
+        assertThat(total, is(new Money(new BigDecimal("33.62"))));
     }
 }
@@ -6,10 +6,13 @@ import org.junit.Test;
 
 import java.math.BigDecimal;
 
+import main.java.com.dlohaiti.dlokiosk.domain.CartSnapshot;
 import main.java.com.dlohaiti.dlokiosk.domain.Clock;
 import main.java.com.dlohaiti.dlokiosk.domain.Money;
+import main.java.com.dlohaiti.dlokiosk.domain.PricingEngine;
 import main.java.com.dlohaiti.dlokiosk.domain.Product;
 import main.java.com.dlohaiti.dlokiosk.domain.Promotion;
+import main.java.com.dlohaiti.dlokiosk.domain.Receipt;
 import main.java.com.dlohaiti.dlokiosk.domain.Register;
 import main.java.com.dlohaiti.dlokiosk.domain.ShoppingCart;
 
@@ -21,7 +24,13 @@ import static main.java.com.dlohaiti.dlokiosk.domain.PromotionType.AMOUNT;
 import static main.java.com.dlohaiti.dlokiosk.domain.PromotionType.PERCENT;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class ShoppingCartTest {
     private ShoppingCart cart;
@@ -29,7 +38,7 @@ public class ShoppingCartTest {
 
     @Before
     public void setUp() {
-        register = new Register(mock(Clock.class), mock(ReceiptsRepository.class));
+        register = new Register(mock(Clock.class), savingRepository(), new PricingEngine());
         cart = new ShoppingCart(register);
     }
 
@@ -61,6 +70,34 @@ public class ShoppingCartTest {
         assertThat(cart.isEmpty(), is(true));
     }
 
+    @Test
+    public void shouldRemoveOneUnitOfALineAtATime() {
+        cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).withGallons(5).withQuantity(2).build());
+
+        cart.removeProduct(0);
+
+        assertThat(cart.getProducts().size(), is(1));
+        assertThat(cart.getProducts().get(0).getQuantity(), is(1));
+        assertThat(cart.getQuantity("ABC"), is(1));
+        assertThat(cart.getSubtotal(), is(Money.centimes(1000)));
+        assertThat(cart.getTotalGallons(), is(5));
+
+        cart.removeProduct(0);
+
+        assertThat(cart.isEmpty(), is(true));
+        assertThat(cart.getQuantity("ABC"), is(0));
+    }
+
+    @Test
+    public void shouldRemoveTheLineRatherThanGoBelowTheMinimumQuantity() {
+        cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).withQuantity(3).withMinimumQuantity(3).build());
+
+        cart.removeProduct(0);
+
+        assertThat(cart.isEmpty(), is(true));
+        assertThat(cart.getSubtotal(), is(Money.centimes(0)));
+    }
+
     @Test
     public void shouldBeClearAfterRemovingOnlyPromotion() {
         Promotion promotion = promotionBuilder().build();
@@ -76,6 +113,85 @@ public class ShoppingCartTest {
         assertThat(cart.isEmpty(), is(true));
     }
 
+    @Test
+    public void shouldKeepGallonsAndQuantitiesPerSkuAsProductsComeAndGo() {
+        cart.addProduct(productBuilder().withSku("ABC").withGallons(5).withQuantity(2).build());
+        cart.addProduct(productBuilder().withSku("DEF").withGallons(1).build());
+        cart.addProduct(productBuilder().withSku("GHI").withGallons(3).build());
+        cart.removeProduct(1);
+
+        assertThat(cart.getQuantity("ABC"), is(2));
+        assertThat(cart.getQuantity("DEF"), is(0));
+        assertThat(cart.getQuantity("GHI"), is(1));
+        assertThat(cart.getTotalGallons(), is(13));
+    }
+
+    @Test
+    public void shouldPriceOncePerChangeAndReuseThePricingAtCheckout() {
+        PricingEngine engine = spy(new PricingEngine());
+        cart = new ShoppingCart(new Register(mock(Clock.class), savingRepository(), engine));
+        cart.addProduct(productBuilder().withPrice(10d).build());
+        cart.getTotal();
+        cart.getTotal();
+        cart.addPromotion(promotionBuilder().thatAppliesTo(BASKET).withAmount("10").withPromotionType(PERCENT).build());
+        cart.getTotal();
+        cart.checkout();
+
+        verify(engine, times(2)).price(anyListOf(Product.class), anyListOf(Promotion.class));
+    }
+
+    @Test
+    public void shouldMergeRepeatedProductsIntoOneLine() {
+        cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).build());
+        cart.addProduct(productBuilder().withSku("DEF").withPrice(10d).build());
+        cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).withQuantity(2).build());
+
+        assertThat(cart.getProducts().size(), is(2));
+        assertThat(cart.getProducts().get(0).getQuantity(), is(3));
+        assertThat(cart.getQuantity("ABC"), is(3));
+        assertThat(cart.getSubtotal(), is(Money.centimes(4000)));
+    }
+
+    @Test
+    public void shouldKeepProductsAtDifferentPricesOnSeparateLines() {
+        cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).build());
+        cart.addProduct(productBuilder().withSku("ABC").withPrice(12d).build());
+
+        assertThat(cart.getProducts().size(), is(2));
+        assertThat(cart.getQuantity("ABC"), is(2));
+    }
+
+    @Test
+    public void shouldNotMergePastTheMaximumQuantity() {
+        boolean first = cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).withQuantity(4).withMaximumQuantity(5).build());
+        boolean second = cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).withQuantity(3).withMaximumQuantity(5).build());
+
+        assertThat(first, is(true));
+        assertThat(second, is(false));
+        assertThat(cart.getProducts().get(0).getQuantity(), is(5));
+        assertThat(cart.getQuantity("ABC"), is(5));
+        assertThat(cart.getSubtotal(), is(Money.centimes(5000)));
+    }
+
+    @Test
+    public void shouldReportAProductAddedAboveItsMaximumQuantity() {
+        boolean added = cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).withQuantity(7).withMaximumQuantity(5).build());
+
+        assertThat(added, is(false));
+        assertThat(cart.getProducts().get(0).getQuantity(), is(5));
+        assertThat(cart.getSubtotal(), is(Money.centimes(5000)));
+    }
+
+    @Test
+    public void shouldRaiseANewLineToTheMinimumQuantity() {
+        boolean added = cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).withQuantity(1).withMinimumQuantity(3).build());
+
+        assertThat(added, is(true));
+        assertThat(cart.getProducts().get(0).getQuantity(), is(3));
+        assertThat(cart.getQuantity("ABC"), is(3));
+        assertThat(cart.getSubtotal(), is(Money.centimes(3000)));
+    }
+
     @Test
     public void shouldKnowSubtotalForSingleQuantity() {
         Product product1 = productBuilder().withPrice(10d).build();
@@ -256,7 +372,68 @@ public class ShoppingCartTest {
         cart.addPromotion(promo3);
 
         BigDecimal total = cart.getTotal();
-        assertThat(total.compareTo(new BigDecimal("19.99")), is(0));
+        assertThat(total.compareTo(new BigDecimal("20.00")), is(0));
+    }
+
+    @Test
+    public void shouldKeepSnapshotWhenCartChanges() {
+        cart.addProduct(productBuilder().withSku("ABC").withPrice(10d).build());
+        CartSnapshot snapshot = cart.snapshot();
+
+        cart.addProduct(productBuilder().withSku("DEF").withPrice(5d).build());
+
+        assertThat(snapshot.getProducts().size(), is(1));
+        assertThat(snapshot.getSubtotal(), is(new Money(new BigDecimal("10"))));
+        assertThat(cart.snapshot().getProducts().size(), is(2));
+    }
+
+    @Test
+    public void shouldNotChangeCartFromAnotherThread() throws InterruptedException {
+        final Throwable[] thrown = new Throwable[1];
+        Thread other = new Thread(new Runnable() {
+            @Override public void run() {
+                try {
+                    cart.addProduct(productBuilder().build());
+                } catch (Throwable t) {
+                    thrown[0] = t;
+                }
+            }
+        });
+        other.start();
+        other.join();
+
+        assertThat(thrown[0] instanceof IllegalStateException, is(true));
+        assertThat(cart.isEmpty(), is(true));
     }
 
+    @Test
+    public void shouldOnlySnapshotAndPriceOnTheOwnerThread() throws InterruptedException {
+        cart.addProduct(productBuilder().withPrice(10d).build());
+        final Throwable[] thrown = new Throwable[2];
+        Thread other = new Thread(new Runnable() {
+            @Override public void run() {
+                try {
+                    cart.snapshot();
+                } catch (Throwable t) {
+                    thrown[0] = t;
+                }
+                try {
+                    cart.getPricing();
+                } catch (Throwable t) {
+                    thrown[1] = t;
+                }
+            }
+        });
+        other.start();
+        other.join();
+
+        assertThat(thrown[0] instanceof IllegalStateException, is(true));
+        assertThat(thrown[1] instanceof IllegalStateException, is(true));
+    }
+
+    private ReceiptsRepository savingRepository() {
+        ReceiptsRepository repository = mock(ReceiptsRepository.class);
+        when(repository.add(any(Receipt.class))).thenReturn(true);
+        return repository;
+    }
 }